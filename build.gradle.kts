@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.github.beemerwt"
@@ -17,6 +18,11 @@ repositories {
 dependencies {
     compileOnly("io.papermc.paper:paper-api:1.21.8-R0.1-SNAPSHOT")
 
+    // The jmh source set does not inherit compileOnly; benchmarks need the API at run time too.
+    jmh("io.papermc.paper:paper-api:1.21.8-R0.1-SNAPSHOT")
+
+    // Also absent from the test classpath otherwise; the classes under test use Block's key helpers.
+    testImplementation("io.papermc.paper:paper-api:1.21.8-R0.1-SNAPSHOT")
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
@@ -28,4 +34,31 @@ java {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// ./gradlew jmh (add -Pjmh.includes=<regex> to run a subset)
+jmh {
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    findProperty("jmh.includes")?.let { includes.add(it.toString()) }
+}
+
+// Headless load simulator, sharing the benchmarks' Fixtures stand-ins:
+// ./gradlew simulate -Psim.args="storm --record storm.csv"
+val sim by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets["jmh"].output
+    runtimeClasspath += sourceSets.main.get().output + sourceSets["jmh"].output
+}
+
+dependencies {
+    "simImplementation"("io.papermc.paper:paper-api:1.21.8-R0.1-SNAPSHOT")
+}
+
+tasks.register<JavaExec>("simulate") {
+    description = "Replays a spawn, death and chunk workload against the plugin logic and reports its cost."
+    classpath = sim.runtimeClasspath
+    mainClass.set("com.github.beemerwt.LoadSimulator")
+    findProperty("sim.args")?.let { args(it.toString().split(" ").filter(String::isNotBlank)) }
+}
@@ -0,0 +1,35 @@
+plugins {
+    id("application")
+}
+
+group = "com.github.beemerwt"
+version = "1.0-SNAPSHOT"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    testImplementation(platform("org.junit:junit-bom:5.10.0"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+java {
+    toolchain.languageVersion.set(JavaLanguageVersion.of(21))
+}
+
+// Shares the index format with the plugin by compiling its Bukkit-free sources into the same package.
+tasks.compileJava {
+    source(fileTree(rootProject.file("src/main/java/com/github/beemerwt")) {
+        include("SpawnerIndexFile.java", "LongObjectMap.java", "LongIntMap.java")
+    })
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+application {
+    mainClass.set("com.github.beemerwt.RegionScanner")
+}
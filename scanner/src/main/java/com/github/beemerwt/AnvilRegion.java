@@ -0,0 +1,139 @@
+package com.github.beemerwt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+// One r.X.Z.mca file, mapped read-only. The first 4 KiB holds 1024 locations (3-byte sector offset,
+// 1-byte sector count), indexed by (cz & 31) * 32 + (cx & 31); each chunk starts with its byte length
+// and a compression id. Oversized chunks live next to the region as c.X.Z.mcc with the 128 bit set.
+final class AnvilRegion implements AutoCloseable {
+
+    static final int SECTOR = 4096;
+    static final int CHUNKS = 1024;
+
+    private static final Pattern NAME = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+
+    enum Status { ABSENT, OK, CORRUPT, UNSUPPORTED }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    final int regionX, regionZ;
+
+    private AnvilRegion(Path file, FileChannel channel, MappedByteBuffer map, int regionX, int regionZ) {
+        this.file = file;
+        this.channel = channel;
+        this.map = map;
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+    }
+
+    // Null when the name is not a region file name.
+    static int[] coords(Path file) {
+        Matcher m = NAME.matcher(file.getFileName().toString());
+        if (!m.matches()) return null;
+        return new int[] { Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)) };
+    }
+
+    static AnvilRegion open(Path file) throws IOException {
+        int[] rc = coords(file);
+        if (rc == null) throw new IOException("not a region file name: " + file);
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = ch.size();
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new AnvilRegion(file, ch, map, rc[0], rc[1]);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    // Empty (never generated) regions are zero bytes long or have a zeroed header.
+    boolean hasChunk(int index) {
+        return map.capacity() >= SECTOR && map.getInt(index * 4) != 0;
+    }
+
+    // Decompresses chunk index into a buffer, or returns the status explaining why it could not.
+    Status read(int index, Inflater inflater, ByteBuffer[] out) {
+        if (!hasChunk(index)) return Status.ABSENT;
+        int loc = map.getInt(index * 4);
+        long offset = (long) (loc >>> 8) * SECTOR;
+        int sectors = loc & 0xFF;
+        if (offset < 2L * SECTOR || offset + 5 > map.capacity() || sectors == 0) return Status.CORRUPT;
+        int length = map.getInt((int) offset);
+        if (length < 1 || offset + 4 + length > map.capacity()) return Status.CORRUPT;
+        int compression = map.get((int) offset + 4) & 0xFF;
+        try {
+            if ((compression & 128) != 0) {
+                Path external = file.resolveSibling("c." + (regionX * 32 + (index & 31)) + "."
+                        + (regionZ * 32 + (index >> 5)) + ".mcc");
+                if (!Files.isRegularFile(external)) return Status.CORRUPT;
+                ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(external));
+                return decompress(compression & 127, raw, inflater, out);
+            }
+            ByteBuffer raw = map.slice((int) offset + 5, length - 1);
+            return decompress(compression, raw, inflater, out);
+        } catch (IOException | DataFormatException e) {
+            return Status.CORRUPT;
+        }
+    }
+
+    private static Status decompress(int compression, ByteBuffer raw, Inflater inflater, ByteBuffer[] out)
+            throws IOException, DataFormatException {
+        switch (compression) {
+            case 1 -> {
+                byte[] bytes = new byte[raw.remaining()];
+                raw.get(bytes);
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                    out[0] = ByteBuffer.wrap(in.readAllBytes());
+                }
+                return Status.OK;
+            }
+            case 2 -> {
+                out[0] = inflate(raw, inflater);
+                return Status.OK;
+            }
+            case 3 -> {
+                out[0] = raw;
+                return Status.OK;
+            }
+            default -> {
+                return Status.UNSUPPORTED; // 4 is LZ4, which needs a library the JDK does not have
+            }
+        }
+    }
+
+    private static ByteBuffer inflate(ByteBuffer raw, Inflater inflater) throws DataFormatException {
+        inflater.reset();
+        inflater.setInput(raw);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.remaining() * 4));
+        byte[] chunk = new byte[16384];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(chunk);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("truncated zlib stream");
+            }
+            out.write(chunk, 0, n);
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
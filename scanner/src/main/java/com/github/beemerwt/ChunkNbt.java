@@ -0,0 +1,173 @@
+package com.github.beemerwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Just enough NBT to pull spawners out of a chunk. Only the block entity list is materialized; sections,
+// heightmaps and everything else are stepped over by length without being decoded.
+final class ChunkNbt {
+
+    record Spawner(int x, int y, int z, String type) { } // type is null for an empty spawner
+
+    private static final byte END = 0, BYTE = 1, SHORT = 2, INT = 3, LONG = 4, FLOAT = 5, DOUBLE = 6,
+            BYTE_ARRAY = 7, STRING = 8, LIST = 9, COMPOUND = 10, INT_ARRAY = 11, LONG_ARRAY = 12;
+
+    private ChunkNbt() { }
+
+    // Appends the chunk's spawners to out. Handles 1.18+ (root block_entities) and older (Level.TileEntities).
+    static void spawners(ByteBuffer b, List<Spawner> out) {
+        if (b.get() != COMPOUND) throw new IllegalArgumentException("chunk root is not a compound");
+        skipString(b);
+        scanCompound(b, out, true);
+    }
+
+    private static void scanCompound(ByteBuffer b, List<Spawner> out, boolean root) {
+        byte type;
+        while ((type = b.get()) != END) {
+            String name = readString(b);
+            if (type == LIST && (name.equals("block_entities") || name.equals("TileEntities"))) {
+                readBlockEntities(b, out);
+            } else if (type == COMPOUND && root && name.equals("Level")) {
+                scanCompound(b, out, false);
+            } else {
+                skip(b, type);
+            }
+        }
+    }
+
+    private static void readBlockEntities(ByteBuffer b, List<Spawner> out) {
+        byte elem = b.get();
+        int n = b.getInt();
+        if (elem != COMPOUND) {
+            for (int i = 0; i < n; i++) skip(b, elem);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> be = readCompound(b);
+            Object id = be.get("id");
+            if (!"minecraft:spawner".equals(id) && !"MobSpawner".equals(id)) continue;
+            if (!(be.get("x") instanceof Integer x) || !(be.get("y") instanceof Integer y)
+                    || !(be.get("z") instanceof Integer z)) continue;
+            out.add(new Spawner(x, y, z, spawnType(be)));
+        }
+    }
+
+    // SpawnData.entity.id since 1.18, SpawnData.id before, EntityId before 1.9.
+    private static String spawnType(Map<String, Object> spawner) {
+        Object id = null;
+        if (spawner.get("SpawnData") instanceof Map<?, ?> data) {
+            id = data.get("entity") instanceof Map<?, ?> entity ? entity.get("id") : data.get("id");
+        }
+        if (id == null) id = spawner.get("EntityId");
+        if (!(id instanceof String s) || s.isEmpty()) return null;
+        return s.indexOf(':') < 0 ? "minecraft:" + s.toLowerCase(java.util.Locale.ROOT) : s;
+    }
+
+    private static Map<String, Object> readCompound(ByteBuffer b) {
+        Map<String, Object> m = new HashMap<>();
+        byte type;
+        while ((type = b.get()) != END) {
+            String name = readString(b);
+            m.put(name, readPayload(b, type));
+        }
+        return m;
+    }
+
+    // Arrays are skipped and read as null; nothing in a spawner needs them.
+    private static Object readPayload(ByteBuffer b, byte type) {
+        switch (type) {
+            case BYTE: return b.get();
+            case SHORT: return b.getShort();
+            case INT: return b.getInt();
+            case LONG: return b.getLong();
+            case FLOAT: return b.getFloat();
+            case DOUBLE: return b.getDouble();
+            case STRING: return readString(b);
+            case COMPOUND: return readCompound(b);
+            case LIST: {
+                byte elem = b.get();
+                int n = b.getInt();
+                List<Object> list = new ArrayList<>(Math.max(0, Math.min(n, 64)));
+                for (int i = 0; i < n; i++) list.add(readPayload(b, elem));
+                return list;
+            }
+            default:
+                skip(b, type);
+                return null;
+        }
+    }
+
+    private static void skip(ByteBuffer b, byte type) {
+        switch (type) {
+            case END: return;
+            case BYTE: advance(b, 1); return;
+            case SHORT: advance(b, 2); return;
+            case INT, FLOAT: advance(b, 4); return;
+            case LONG, DOUBLE: advance(b, 8); return;
+            case BYTE_ARRAY: advance(b, b.getInt()); return;
+            case STRING: skipString(b); return;
+            case INT_ARRAY: advance(b, 4L * b.getInt()); return;
+            case LONG_ARRAY: advance(b, 8L * b.getInt()); return;
+            case LIST: {
+                byte elem = b.get();
+                int n = b.getInt();
+                int fixed = fixedSize(elem);
+                if (fixed >= 0) {
+                    advance(b, (long) fixed * n);
+                } else {
+                    for (int i = 0; i < n; i++) skip(b, elem);
+                }
+                return;
+            }
+            case COMPOUND: {
+                byte t;
+                while ((t = b.get()) != END) {
+                    skipString(b);
+                    skip(b, t);
+                }
+                return;
+            }
+            default: throw new IllegalArgumentException("unknown NBT tag type " + type);
+        }
+    }
+
+    private static int fixedSize(byte type) {
+        return switch (type) {
+            case END -> 0;
+            case BYTE -> 1;
+            case SHORT -> 2;
+            case INT, FLOAT -> 4;
+            case LONG, DOUBLE -> 8;
+            default -> -1;
+        };
+    }
+
+    private static void advance(ByteBuffer b, long n) {
+        if (n < 0 || n > b.remaining()) throw new IllegalArgumentException("truncated NBT");
+        b.position(b.position() + (int) n);
+    }
+
+    private static void skipString(ByteBuffer b) {
+        advance(b, b.getShort() & 0xFFFF);
+    }
+
+    // NBT strings are modified UTF-8; identical to UTF-8 for the ASCII ids and names read here.
+    private static String readString(ByteBuffer b) {
+        int len = b.getShort() & 0xFFFF;
+        if (len > b.remaining()) throw new IllegalArgumentException("truncated NBT");
+        String s;
+        if (b.hasArray()) {
+            s = new String(b.array(), b.arrayOffset() + b.position(), len, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[len];
+            b.get(b.position(), bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        b.position(b.position() + len);
+        return s;
+    }
+}
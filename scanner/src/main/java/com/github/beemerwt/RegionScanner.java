@@ -0,0 +1,261 @@
+package com.github.beemerwt;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Inflater;
+
+// Offline spawner finder: walks a world's region files in parallel and lists every spawner block entity,
+// optionally writing the result as the plugin's spawner index for that world. Run it with the server
+// stopped; region files being written while they are mapped can read as corrupt.
+public final class RegionScanner {
+
+    // What one region file held. scanned has a bit per chunk that was read in full (SpawnerIndexFile.regionBit);
+    // corrupt and unsupported chunks are left out so the plugin still scans them when they load.
+    record RegionResult(int regionX, int regionZ, long[] scanned, List<ChunkNbt.Spawner> spawners,
+                        int chunks, int corrupt, int unsupported, long bytes) { }
+
+    record Result(List<RegionResult> regions, int failedFiles) {
+        int chunks() { return regions.stream().mapToInt(RegionResult::chunks).sum(); }
+        int corrupt() { return regions.stream().mapToInt(RegionResult::corrupt).sum(); }
+        int unsupported() { return regions.stream().mapToInt(RegionResult::unsupported).sum(); }
+        long bytes() { return regions.stream().mapToLong(RegionResult::bytes).sum(); }
+
+        List<ChunkNbt.Spawner> spawners() {
+            List<ChunkNbt.Spawner> all = new ArrayList<>();
+            for (RegionResult r : regions) all.addAll(r.spawners());
+            return all;
+        }
+    }
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private RegionScanner() { }
+
+    public static void main(String[] args) {
+        Path world = null, report = null, seed = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--report" -> report = Path.of(args[++i]);
+                    case "--seed-index" -> seed = Path.of(args[++i]);
+                    case "--threads" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                    default -> {
+                        if (args[i].startsWith("--") || world != null) throw new IllegalArgumentException(args[i]);
+                        world = Path.of(args[i]);
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            world = null;
+        }
+        if (world == null) {
+            System.err.println("Usage: RegionScanner <world folder> [--report <file.csv>] "
+                    + "[--seed-index <SpawnerTweaks data folder>] [--threads <n>]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            System.exit(run(world, report, seed, threads, System.out));
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static int run(Path world, Path report, Path seed, int threads, PrintStream out) throws IOException {
+        Path regionDir = regionDir(world);
+        if (regionDir == null) throw new IOException("no region folder under " + world);
+
+        long t0 = System.nanoTime();
+        Result result = scan(regionDir, threads);
+        double secs = (System.nanoTime() - t0) / 1e9;
+
+        List<ChunkNbt.Spawner> spawners = result.spawners();
+        spawners.sort(Comparator.comparingInt(ChunkNbt.Spawner::x).thenComparingInt(ChunkNbt.Spawner::z)
+                .thenComparingInt(ChunkNbt.Spawner::y));
+        Map<String, Integer> byType = new TreeMap<>();
+        for (ChunkNbt.Spawner s : spawners) byType.merge(String.valueOf(s.type()), 1, Integer::sum);
+
+        out.printf(Locale.ROOT, "%s: %d region files, %d chunks, %d spawners in %.1fs (%.1f MiB/s, %.0f chunks/s)%n",
+                regionDir, result.regions().size(), result.chunks(), spawners.size(), secs,
+                result.bytes() / 1048576.0 / Math.max(secs, 1e-9), result.chunks() / Math.max(secs, 1e-9));
+        for (Map.Entry<String, Integer> e : byType.entrySet()) out.printf(Locale.ROOT, "  %-32s %d%n", e.getKey(), e.getValue());
+        if (result.corrupt() > 0) out.println("Skipped " + result.corrupt() + " corrupt chunks.");
+        if (result.unsupported() > 0) out.println("Skipped " + result.unsupported() + " chunks with unsupported compression.");
+        if (result.failedFiles() > 0) out.println("Could not open " + result.failedFiles() + " region files.");
+
+        if (report != null) {
+            writeReport(report, spawners);
+            out.println("Report written to " + report);
+        }
+        if (seed != null) {
+            int unread = result.corrupt() + result.unsupported();
+            if (unread > 0) {
+                out.println("Warning: " + unread + " chunks could not be read and are left out of the index;"
+                        + " the plugin scans them when they first load.");
+            }
+            if (result.unsupported() > 0 && result.chunks() == 0) {
+                // e.g. region-file-compression=lz4: the index would hold nothing but cost a write.
+                out.println("Not writing a spawner index: no chunk could be read.");
+                return 3;
+            }
+            Path file = seed.resolve("index").resolve(worldUid(world) + ".idx");
+            if (Files.exists(file)) out.println("Replacing " + file);
+            SpawnerIndexFile.write(file, SpawnerIndexFile.encode(toIndex(result)));
+            out.println("Spawner index written to " + file);
+        }
+        return result.corrupt() > 0 || result.unsupported() > 0 || result.failedFiles() > 0 ? 3 : 0;
+    }
+
+    // Bukkit keeps each dimension in its own world folder; the nether and end nest their regions one level down.
+    static Path regionDir(Path world) {
+        for (String sub : new String[] { "region", "DIM-1/region", "DIM1/region" }) {
+            Path p = world.resolve(sub);
+            if (Files.isDirectory(p)) return p;
+        }
+        return null;
+    }
+
+    static Result scan(Path regionDir, int threads) throws IOException {
+        List<Path> files;
+        try (Stream<Path> s = Files.list(regionDir)) {
+            files = s.filter(p -> AnvilRegion.coords(p) != null).sorted().toList();
+        }
+        ConcurrentLinkedQueue<RegionResult> results = new ConcurrentLinkedQueue<>();
+        AtomicInteger failed = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ScanTask(files, 0, files.size(), results, failed));
+        } finally {
+            pool.shutdown();
+        }
+        List<RegionResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingInt(RegionResult::regionX).thenComparingInt(RegionResult::regionZ));
+        return new Result(sorted, failed.get());
+    }
+
+    // Everything found in one region file. Chunks that fail to parse are counted and skipped.
+    static RegionResult scanRegion(AnvilRegion region, Inflater inflater) {
+        long[] scanned = new long[SpawnerIndexFile.REGION_WORDS];
+        List<ChunkNbt.Spawner> spawners = new ArrayList<>();
+        ByteBuffer[] data = new ByteBuffer[1];
+        int chunks = 0, corrupt = 0, unsupported = 0;
+        long bytes = 0;
+        for (int i = 0; i < AnvilRegion.CHUNKS; i++) {
+            AnvilRegion.Status st = region.read(i, inflater, data);
+            switch (st) {
+                case ABSENT -> { }
+                case CORRUPT -> corrupt++;
+                case UNSUPPORTED -> unsupported++;
+                default -> {
+                    ByteBuffer b = data[0];
+                    bytes += b.remaining();
+                    int before = spawners.size();
+                    try {
+                        ChunkNbt.spawners(b, spawners);
+                        scanned[i >>> 6] |= 1L << i; // index is (cz & 31) * 32 + (cx & 31), the same as regionBit
+                        chunks++;
+                    } catch (RuntimeException e) {
+                        while (spawners.size() > before) spawners.remove(spawners.size() - 1);
+                        corrupt++;
+                    }
+                }
+            }
+        }
+        return new RegionResult(region.regionX, region.regionZ, scanned, spawners, chunks, corrupt, unsupported, bytes);
+    }
+
+    // Every chunk read in full is marked scanned, so the plugin does not rescan it on first load.
+    static SpawnerIndexFile.Contents toIndex(Result result) {
+        TreeSet<String> names = new TreeSet<>();
+        for (RegionResult r : result.regions()) {
+            for (ChunkNbt.Spawner s : r.spawners()) if (s.type() != null) names.add(s.type());
+        }
+        List<String> types = new ArrayList<>(names);
+        Map<String, Integer> typeIndex = new HashMap<>();
+        for (int i = 0; i < types.size(); i++) typeIndex.put(types.get(i), i);
+
+        LongObjectMap<long[]> regions = new LongObjectMap<>(result.regions().size());
+        LongObjectMap<long[]> chunks = new LongObjectMap<>(16);
+        for (RegionResult r : result.regions()) {
+            regions.put(SpawnerIndexFile.chunkKey(r.regionX(), r.regionZ()), r.scanned());
+            for (ChunkNbt.Spawner s : r.spawners()) {
+                long key = SpawnerIndexFile.chunkKey(s.x() >> 4, s.z() >> 4);
+                long e = SpawnerIndexFile.entry(SpawnerIndexFile.localPos(s.x(), s.y(), s.z()),
+                        s.type() == null ? -1 : typeIndex.get(s.type()));
+                long[] old = chunks.get(key);
+                long[] next = old == null ? new long[1] : Arrays.copyOf(old, old.length + 1);
+                next[next.length - 1] = e;
+                chunks.put(key, next);
+            }
+        }
+        return new SpawnerIndexFile.Contents(types, regions, chunks);
+    }
+
+    static void writeReport(Path file, List<ChunkNbt.Spawner> spawners) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("x,y,z,type\n");
+            for (ChunkNbt.Spawner s : spawners) {
+                w.write(s.x() + "," + s.y() + "," + s.z() + "," + (s.type() == null ? "" : s.type()) + "\n");
+            }
+        }
+    }
+
+    // uid.dat is the world UUID as two big-endian longs, the same file Bukkit reads for World.getUID().
+    static UUID worldUid(Path world) throws IOException {
+        Path uid = world.resolve("uid.dat");
+        if (!Files.isRegularFile(uid)) throw new IOException("no uid.dat in " + world + "; start the server once first");
+        try (InputStream in = Files.newInputStream(uid); DataInputStream data = new DataInputStream(in)) {
+            return new UUID(data.readLong(), data.readLong());
+        }
+    }
+
+    // Splits the file list in halves down to single files.
+    private static final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // never serialized; RecursiveAction just is Serializable
+
+        private final transient List<Path> files;
+        private final int from, to;
+        private final transient Queue<RegionResult> results;
+        private final AtomicInteger failed;
+
+        ScanTask(List<Path> files, int from, int to, Queue<RegionResult> results, AtomicInteger failed) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.failed = failed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ScanTask(files, from, mid, results, failed), new ScanTask(files, mid, to, results, failed));
+                return;
+            }
+            if (to == from) return;
+            try (AnvilRegion region = AnvilRegion.open(files.get(from))) {
+                results.add(scanRegion(region, INFLATER.get()));
+            } catch (IOException e) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.github.beemerwt;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionScannerTest {
+
+    private static final int GZIP = 1, ZLIB = 2, NONE = 3, LZ4 = 4, EXTERNAL = 128;
+
+    @TempDir
+    Path dir;
+
+    // Region 0,0: every way a chunk can be stored, plus two that cannot be read.
+    private static Path mixedRegion(Path dir) throws IOException {
+        RegionWriter r = new RegionWriter(0, 0);
+        r.chunk(0, 0, ZLIB, modernChunk(spawner(1, 40, 2, "minecraft:zombie"), chest(3, 40, 3)));
+        r.chunk(1, 0, GZIP, legacyChunk(legacySpawner(20, 30, 5, "Skeleton")));
+        r.chunk(0, 1, NONE, modernChunk());
+        r.chunk(1, 1, EXTERNAL | ZLIB, modernChunk(spawner(17, -10, 18, "minecraft:blaze"), emptySpawner(18, -10, 18)));
+        r.chunk(0, 2, ZLIB, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }, false); // not a zlib stream
+        r.chunk(1, 2, LZ4, modernChunk(spawner(20, 64, 36, "minecraft:spider")));
+        byte[] truncated = modernChunk(spawner(5, 64, 37, "minecraft:spider"));
+        r.chunk(2, 2, ZLIB, Arrays.copyOf(truncated, truncated.length / 2)); // inflates, then fails to parse
+        return r.write(dir);
+    }
+
+    @Test
+    void scanRegionReadsEveryStorageAndLayout() throws IOException {
+        RegionScanner.RegionResult r;
+        try (AnvilRegion region = AnvilRegion.open(mixedRegion(dir))) {
+            r = RegionScanner.scanRegion(region, new Inflater());
+        }
+        assertEquals(4, r.chunks());
+        assertEquals(2, r.corrupt());
+        assertEquals(1, r.unsupported());
+        assertEquals(List.of(
+                new ChunkNbt.Spawner(1, 40, 2, "minecraft:zombie"),
+                new ChunkNbt.Spawner(20, 30, 5, "minecraft:skeleton"),
+                new ChunkNbt.Spawner(17, -10, 18, "minecraft:blaze"),
+                new ChunkNbt.Spawner(18, -10, 18, null)), r.spawners());
+    }
+
+    @Test
+    void onlyChunksReadInFullAreMarkedScanned() throws IOException {
+        RegionScanner.RegionResult r;
+        try (AnvilRegion region = AnvilRegion.open(mixedRegion(dir))) {
+            r = RegionScanner.scanRegion(region, new Inflater());
+        }
+        long[] expected = new long[SpawnerIndexFile.REGION_WORDS];
+        for (int[] c : new int[][] { { 0, 0 }, { 1, 0 }, { 0, 1 }, { 1, 1 } }) {
+            int bit = SpawnerIndexFile.regionBit(c[0], c[1]);
+            expected[bit >>> 6] |= 1L << bit;
+        }
+        assertArrayEquals(expected, r.scanned());
+    }
+
+    @Test
+    void toIndexGroupsSpawnersByChunkWithSortedTypes() throws IOException {
+        RegionWriter neg = new RegionWriter(-1, -1);
+        neg.chunk(-1, -1, ZLIB, modernChunk(spawner(-5, 12, -7, "minecraft:cave_spider"), spawner(-6, 13, -7, "minecraft:zombie")));
+        neg.write(dir);
+        mixedRegion(dir);
+        RegionScanner.Result result = RegionScanner.scan(dir, 2);
+        SpawnerIndexFile.Contents c = RegionScanner.toIndex(result);
+
+        List<String> types = List.of("minecraft:blaze", "minecraft:cave_spider", "minecraft:skeleton", "minecraft:zombie");
+        assertEquals(types, c.types());
+        assertEquals(2, c.regions().size());
+        assertNotNull(c.regions().get(SpawnerIndexFile.regionKey(-1, -1)));
+        assertNotNull(c.regions().get(SpawnerIndexFile.regionKey(0, 0)));
+
+        Map<String, String> found = entries(c);
+        assertEquals(Map.of(
+                "-1,-1:-5,12,-7", "minecraft:cave_spider",
+                "-1,-1:-6,13,-7", "minecraft:zombie",
+                "0,0:1,40,2", "minecraft:zombie",
+                "1,0:20,30,5", "minecraft:skeleton",
+                "1,1:17,-10,18", "minecraft:blaze",
+                "1,1:18,-10,18", "-"), found);
+    }
+
+    @Test
+    void indexFileRoundTrip() throws IOException {
+        mixedRegion(dir);
+        SpawnerIndexFile.Contents c = RegionScanner.toIndex(RegionScanner.scan(dir, 1));
+        Path file = dir.resolve("index").resolve("world.idx");
+        SpawnerIndexFile.write(file, SpawnerIndexFile.encode(c));
+        SpawnerIndexFile.Contents back = SpawnerIndexFile.read(file);
+
+        assertEquals(c.types(), back.types());
+        assertEquals(c.regions().size(), back.regions().size());
+        c.regions().forEach((key, bits) -> assertArrayEquals(bits, back.regions().get(key)));
+        assertEquals(entries(c), entries(back));
+    }
+
+    @Test
+    void seedIndexSkipsUnreadableChunks() throws IOException {
+        Path world = world();
+        mixedRegion(world.resolve("region"));
+        Path data = dir.resolve("plugin");
+        String out = run(world, data);
+
+        assertTrue(out.contains("Warning: 3 chunks could not be read"), out);
+        SpawnerIndexFile.Contents back = SpawnerIndexFile.read(data.resolve("index").resolve(WORLD_ID + ".idx"));
+        long[] bits = back.regions().get(SpawnerIndexFile.regionKey(0, 0));
+        assertEquals(4, Long.bitCount(bits[0]) + Long.bitCount(bits[1]));
+    }
+
+    @Test
+    void seedIndexRefusesWhenNothingCouldBeRead() throws IOException {
+        Path world = world();
+        RegionWriter r = new RegionWriter(0, 0);
+        r.chunk(0, 0, LZ4, modernChunk(spawner(1, 40, 2, "minecraft:zombie")));
+        r.chunk(1, 0, LZ4, modernChunk());
+        r.write(world.resolve("region"));
+        Path data = dir.resolve("plugin");
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        int code = RegionScanner.run(world, null, data, 1, new PrintStream(buf, true, StandardCharsets.UTF_8));
+
+        assertEquals(3, code);
+        assertTrue(buf.toString(StandardCharsets.UTF_8).contains("Not writing a spawner index"));
+        assertFalse(Files.exists(data.resolve("index").resolve(WORLD_ID + ".idx")));
+    }
+
+    // --- fixtures
+
+    private static final UUID WORLD_ID = new UUID(0x1234, 0x5678);
+
+    private Path world() throws IOException {
+        Path world = dir.resolve("world");
+        Files.createDirectories(world.resolve("region"));
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(world.resolve("uid.dat")))) {
+            out.writeLong(WORLD_ID.getMostSignificantBits());
+            out.writeLong(WORLD_ID.getLeastSignificantBits());
+        }
+        return world;
+    }
+
+    private static String run(Path world, Path data) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        RegionScanner.run(world, null, data, 1, new PrintStream(buf, true, StandardCharsets.UTF_8));
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+
+    // "cx,cz:x,y,z" -> type key, or "-" for an empty spawner.
+    private static Map<String, String> entries(SpawnerIndexFile.Contents c) {
+        Map<String, String> out = new TreeMap<>();
+        c.chunks().forEach((key, entries) -> {
+            int cx = SpawnerIndexFile.chunkX(key), cz = SpawnerIndexFile.chunkZ(key);
+            for (long e : entries) {
+                int pos = SpawnerIndexFile.localPos(e), ti = SpawnerIndexFile.typeIndex(e);
+                int x = cx << 4 | SpawnerIndexFile.localX(pos), y = SpawnerIndexFile.localY(pos), z = cz << 4 | SpawnerIndexFile.localZ(pos);
+                out.put(cx + "," + cz + ":" + x + "," + y + "," + z, ti < 0 ? "-" : c.types().get(ti));
+            }
+        });
+        return out;
+    }
+
+    // 1.18+: block entities at the root, spawn type under SpawnData.entity.id.
+    private static byte[] modernChunk(Nbt... blockEntities) throws IOException {
+        return Nbt.root(w -> {
+            w.intTag("DataVersion", 3955);
+            w.intTag("xPos", 0);
+            w.longArray("Heightmaps", new long[37]);
+            w.list("sections", Nbt.COMPOUND, List.of(Nbt.compound(s -> {
+                s.byteTag("Y", (byte) 4);
+                s.byteArray("BlockLight", new byte[2048]);
+            })));
+            w.list("block_entities", Nbt.COMPOUND, List.of(blockEntities));
+        });
+    }
+
+    // Before 1.18: everything under Level, block entities in TileEntities, spawn type in EntityId.
+    private static byte[] legacyChunk(Nbt... tileEntities) throws IOException {
+        return Nbt.root(w -> {
+            w.intTag("DataVersion", 1343);
+            w.compound("Level", l -> {
+                l.intTag("xPos", 1);
+                l.byteArray("Biomes", new byte[256]);
+                l.list("TileEntities", Nbt.COMPOUND, List.of(tileEntities));
+            });
+        });
+    }
+
+    private static Nbt spawner(int x, int y, int z, String type) {
+        return Nbt.compound(w -> {
+            w.string("id", "minecraft:spawner");
+            pos(w, x, y, z);
+            w.shortTag("Delay", (short) 20);
+            w.compound("SpawnData", d -> d.compound("entity", e -> e.string("id", type)));
+        });
+    }
+
+    private static Nbt emptySpawner(int x, int y, int z) {
+        return Nbt.compound(w -> {
+            w.string("id", "minecraft:spawner");
+            pos(w, x, y, z);
+            w.compound("SpawnData", d -> { });
+        });
+    }
+
+    private static Nbt legacySpawner(int x, int y, int z, String entityId) {
+        return Nbt.compound(w -> {
+            w.string("id", "MobSpawner");
+            pos(w, x, y, z);
+            w.string("EntityId", entityId);
+        });
+    }
+
+    private static Nbt chest(int x, int y, int z) {
+        return Nbt.compound(w -> {
+            w.string("id", "minecraft:chest");
+            pos(w, x, y, z);
+            w.list("Items", Nbt.COMPOUND, List.of());
+        });
+    }
+
+    private static void pos(Nbt.Writer w, int x, int y, int z) throws IOException {
+        w.intTag("x", x);
+        w.intTag("y", y);
+        w.intTag("z", z);
+    }
+
+    // Just enough of an NBT writer for the fixtures above.
+    private interface Nbt {
+        byte BYTE = 1, SHORT = 2, INT = 3, BYTE_ARRAY = 7, STRING = 8, LIST = 9, COMPOUND = 10, LONG_ARRAY = 12;
+
+        void payload(DataOutputStream out) throws IOException;
+
+        interface Body {
+            void write(Writer w) throws IOException;
+        }
+
+        static Nbt compound(Body body) {
+            return out -> {
+                body.write(new Writer(out));
+                out.writeByte(0);
+            };
+        }
+
+        static byte[] root(Body body) throws IOException {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buf);
+            out.writeByte(COMPOUND);
+            out.writeUTF("");
+            compound(body).payload(out);
+            return buf.toByteArray();
+        }
+
+        record Writer(DataOutputStream out) {
+            private void head(byte type, String name) throws IOException {
+                out.writeByte(type);
+                out.writeUTF(name);
+            }
+
+            void byteTag(String name, byte v) throws IOException { head(BYTE, name); out.writeByte(v); }
+            void shortTag(String name, short v) throws IOException { head(SHORT, name); out.writeShort(v); }
+            void intTag(String name, int v) throws IOException { head(INT, name); out.writeInt(v); }
+            void string(String name, String v) throws IOException { head(STRING, name); out.writeUTF(v); }
+
+            void byteArray(String name, byte[] v) throws IOException {
+                head(BYTE_ARRAY, name);
+                out.writeInt(v.length);
+                out.write(v);
+            }
+
+            void longArray(String name, long[] v) throws IOException {
+                head(LONG_ARRAY, name);
+                out.writeInt(v.length);
+                for (long l : v) out.writeLong(l);
+            }
+
+            void compound(String name, Body body) throws IOException {
+                head(COMPOUND, name);
+                Nbt.compound(body).payload(out);
+            }
+
+            void list(String name, byte elem, List<Nbt> items) throws IOException {
+                head(LIST, name);
+                out.writeByte(items.isEmpty() ? 0 : elem);
+                out.writeInt(items.size());
+                for (Nbt item : items) item.payload(out);
+            }
+        }
+    }
+
+    // Lays chunks out one after another from sector 2; external chunks go to c.X.Z.mcc beside the region.
+    private static final class RegionWriter {
+        private final int regionX, regionZ;
+        private final List<Object[]> chunks = new ArrayList<>(); // index, compression, stored bytes
+
+        RegionWriter(int regionX, int regionZ) {
+            this.regionX = regionX;
+            this.regionZ = regionZ;
+        }
+
+        void chunk(int cx, int cz, int compression, byte[] nbt) throws IOException {
+            chunk(cx, cz, compression, nbt, true);
+        }
+
+        // compress=false stores the bytes as given under the compression id.
+        void chunk(int cx, int cz, int compression, byte[] nbt, boolean compress) throws IOException {
+            byte[] stored = compress ? compress(compression & 127, nbt) : nbt;
+            chunks.add(new Object[] { ((cz & 31) << 5) | (cx & 31), compression, stored });
+        }
+
+        Path write(Path dir) throws IOException {
+            Files.createDirectories(dir);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            int[] locations = new int[AnvilRegion.CHUNKS];
+            int sector = 2;
+            for (Object[] c : chunks) {
+                int index = (int) c[0], compression = (int) c[1];
+                byte[] stored = (byte[]) c[2];
+                byte[] inRegion = stored;
+                if ((compression & EXTERNAL) != 0) {
+                    int cx = regionX * 32 + (index & 31), cz = regionZ * 32 + (index >> 5);
+                    Files.write(dir.resolve("c." + cx + "." + cz + ".mcc"), stored);
+                    inRegion = new byte[0];
+                }
+                ByteBuffer b = ByteBuffer.allocate(5 + inRegion.length);
+                b.putInt(inRegion.length + 1).put((byte) compression).put(inRegion);
+                int sectors = (b.capacity() + AnvilRegion.SECTOR - 1) / AnvilRegion.SECTOR;
+                body.write(b.array());
+                body.write(new byte[sectors * AnvilRegion.SECTOR - b.capacity()]);
+                locations[index] = sector << 8 | sectors;
+                sector += sectors;
+            }
+            ByteBuffer header = ByteBuffer.allocate(2 * AnvilRegion.SECTOR);
+            for (int loc : locations) header.putInt(loc);
+            Path file = dir.resolve("r." + regionX + "." + regionZ + ".mca");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                out.write(header.array());
+                body.writeTo(out);
+            }
+            return file;
+        }
+
+        private static byte[] compress(int compression, byte[] nbt) throws IOException {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            switch (compression) {
+                case GZIP -> {
+                    try (OutputStream out = new GZIPOutputStream(buf)) { out.write(nbt); }
+                }
+                case ZLIB -> {
+                    try (OutputStream out = new DeflaterOutputStream(buf)) { out.write(nbt); }
+                }
+                default -> buf.write(nbt); // uncompressed; LZ4 is never decoded, so its payload does not matter
+            }
+            return buf.toByteArray();
+        }
+    }
+}
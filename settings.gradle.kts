@@ -1 +1,3 @@
-rootProject.name = "SpawnerTweaks"
\ No newline at end of file
+rootProject.name = "SpawnerTweaks"
+
+include("scanner")
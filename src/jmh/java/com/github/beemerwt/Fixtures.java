@@ -0,0 +1,93 @@
+package com.github.beemerwt;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.CreatureSpawner;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// Stand-ins for the server objects the benchmarks touch. There is no server in a JMH fork, so the
+// PDC and the spawner state are dynamic proxies over plain maps. Proxy dispatch allocates its argument
+// array, which shows up in the gc profiler as a constant per call; compare benchmarks with that in mind.
+final class Fixtures {
+
+    static final NamespacedKey ORIGIN_KEY = new NamespacedKey("spawnertweaks", "origin");
+    static final NamespacedKey TWEAK_KEY = new NamespacedKey("spawnertweaks", "tweak_fingerprint");
+
+    private Fixtures() { }
+
+    // The shipped config plus a few per-world and per-entity overrides so every layer of the merge is exercised.
+    static Settings settings() {
+        YamlConfiguration cfg;
+        try (Reader r = new InputStreamReader(Fixtures.class.getResourceAsStream("/config.yml"), StandardCharsets.UTF_8)) {
+            cfg = YamlConfiguration.loadConfiguration(r);
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException(e);
+        }
+        cfg.set("perWorld.world_nether.spawnCount", 2);
+        cfg.set("perWorld.world_nether.spawnCap", 40);
+        cfg.set("perEntity.ZOMBIE.maxNearbyEntities", 8);
+        cfg.set("perEntity.BLAZE.minSpawnDelay", 15);
+        cfg.set("perEntity.BLAZE.spawnCap", 30);
+        cfg.set("filters.blacklist", java.util.List.of("WITHER"));
+        return Settings.fromConfig(cfg);
+    }
+
+    // Minimal PersistentDataContainer: get/set/has/remove. Arrays are copied both ways like the real one,
+    // and reading a key under the wrong type throws IllegalArgumentException as the server does.
+    static PersistentDataContainer pdc() {
+        Map<NamespacedKey, Object> data = new HashMap<>();
+        return (PersistentDataContainer) Proxy.newProxyInstance(Fixtures.class.getClassLoader(),
+                new Class<?>[] { PersistentDataContainer.class }, (proxy, m, args) -> switch (m.getName()) {
+                    case "get" -> {
+                        Object v = data.get((NamespacedKey) args[0]);
+                        if (v == null) yield null;
+                        PersistentDataType<?, ?> type = (PersistentDataType<?, ?>) args[1];
+                        if (!type.getPrimitiveType().isInstance(v)) throw new IllegalArgumentException("type mismatch");
+                        yield v instanceof long[] a ? a.clone() : v;
+                    }
+                    case "set" -> {
+                        Object v = args[2];
+                        data.put((NamespacedKey) args[0], v instanceof long[] a ? a.clone() : v);
+                        yield null;
+                    }
+                    case "has" -> data.containsKey((NamespacedKey) args[0]);
+                    case "remove" -> {
+                        data.remove((NamespacedKey) args[0]);
+                        yield null;
+                    }
+                    case "isEmpty" -> data.isEmpty();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(m.getName());
+                });
+    }
+
+    // CreatureSpawner state backed by an int per property, starting at the vanilla values.
+    static CreatureSpawner spawner(PersistentDataContainer pdc) {
+        Map<String, Integer> values = new HashMap<>(Map.of(
+                "MinSpawnDelay", 200, "MaxSpawnDelay", 800, "SpawnCount", 4,
+                "MaxNearbyEntities", 6, "RequiredPlayerRange", 16, "SpawnRange", 4));
+        return (CreatureSpawner) Proxy.newProxyInstance(Fixtures.class.getClassLoader(),
+                new Class<?>[] { CreatureSpawner.class }, (proxy, m, args) -> {
+                    String name = m.getName();
+                    if (name.equals("getPersistentDataContainer")) return pdc;
+                    if (name.equals("update")) return true;
+                    if (name.startsWith("get") && values.containsKey(name.substring(3))) return values.get(name.substring(3));
+                    if (name.startsWith("set") && values.containsKey(name.substring(3))) {
+                        values.put(name.substring(3), (Integer) args[0]);
+                        return null;
+                    }
+                    if (name.equals("hashCode")) return System.identityHashCode(proxy);
+                    if (name.equals("equals")) return proxy == args[0];
+                    throw new UnsupportedOperationException(name);
+                });
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.Block;
+import org.bukkit.entity.EntityType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Spawner-keyed counting as the spawn and removal handlers do it: block-key packing, the striped
+// live counts, and the tracked-entity table that feeds them.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LiveCountsBenchmark {
+
+    private static final int SPAWNERS = 4096;
+    private static final int ENTITIES = 1 << 16;
+
+    private final long[] keys = new long[SPAWNERS];
+    private LiveCounts counts;
+    private TrackedEntities tracked;
+    private final EntityTypeSet trackedTypes = new EntityTypeSet();
+    private UUID world;
+    private int slot;
+    private int i;
+    private int nextId = ENTITIES;
+
+    @Setup
+    public void setup() {
+        world = UUID.randomUUID();
+        counts = new LiveCounts();
+        tracked = new TrackedEntities(counts);
+        slot = counts.slot(world);
+        trackedTypes.add(EntityType.ZOMBIE);
+        java.util.Random r = new java.util.Random(42);
+        for (int k = 0; k < SPAWNERS; k++) {
+            keys[k] = Block.getBlockKey(r.nextInt(20_000) - 10_000, r.nextInt(384) - 64, r.nextInt(20_000) - 10_000);
+        }
+        // Steady state: a populated table where each spawn is paired with a removal.
+        for (int id = 0; id < ENTITIES; id++) tracked.track(id, slot, keys[id & (SPAWNERS - 1)]);
+    }
+
+    @Benchmark
+    public long blockKey() {
+        int k = i++;
+        return Block.getBlockKey(k & 1023, (k >> 10) & 255, k >> 18);
+    }
+
+    @Benchmark
+    public int getBySlot() {
+        return counts.get(slot, keys[i++ & (SPAWNERS - 1)]);
+    }
+
+    @Benchmark
+    public int getByUuid() {
+        return counts.get(world, keys[i++ & (SPAWNERS - 1)]);
+    }
+
+    @Benchmark
+    public int addRemove() {
+        long key = keys[i++ & (SPAWNERS - 1)];
+        counts.add(slot, key, 1);
+        return counts.add(slot, key, -1);
+    }
+
+    // One spawn and one removal: the table size stays constant across iterations.
+    @Benchmark
+    public boolean trackUntrack() {
+        int id = nextId++;
+        tracked.track(id, slot, keys[id & (SPAWNERS - 1)]);
+        return tracked.untrack(id - ENTITIES);
+    }
+
+    // onEntityRemove for an item or projectile: should stop at the type flags.
+    @Benchmark
+    public boolean removeUntrackedType() {
+        return trackedTypes.contains(EntityType.ITEM) && tracked.untrack(i++);
+    }
+
+    @Benchmark
+    public boolean isTrackedMiss() {
+        return tracked.isTracked(-1 - (i++ & 0xffff));
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.Block;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Origin tag round trips: the binary long[3] tag against the legacy "uuid|x|y|z" string it replaced.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OriginTagBenchmark {
+
+    private final UUID world = UUID.randomUUID();
+    private final OriginTag tag = new OriginTag(Fixtures.ORIGIN_KEY);
+    private PersistentDataContainer tagged;
+    private PersistentDataContainer scratch;
+    private String legacy;
+    private int x = 120, y = 40, z = -3000;
+
+    @Setup
+    public void setup() {
+        tagged = Fixtures.pdc();
+        tag.write(tagged, world, Block.getBlockKey(x, y, z));
+        scratch = Fixtures.pdc();
+        legacy = world + "|" + x + "|" + y + "|" + z;
+    }
+
+    @Benchmark
+    public long[] read() {
+        return tag.read(tagged);
+    }
+
+    @Benchmark
+    public PersistentDataContainer write() {
+        tag.write(scratch, world, Block.getBlockKey(x, y, z));
+        return scratch;
+    }
+
+    @Benchmark
+    public long[] decodeLegacy() {
+        return OriginTag.decodeLegacy(legacy);
+    }
+
+    // What every spawn used to pay before the binary tag.
+    @Benchmark
+    public PersistentDataContainer encodeLegacy() {
+        scratch.set(Fixtures.ORIGIN_KEY, PersistentDataType.STRING, world + "|" + x + "|" + y + "|" + z);
+        return scratch;
+    }
+
+    // Read of a tag still in the old format: decode plus the in-place rewrite.
+    @Benchmark
+    public long[] migrate() {
+        scratch.set(Fixtures.ORIGIN_KEY, PersistentDataType.STRING, legacy);
+        return tag.read(scratch);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.beemerwt;
+
+import org.bukkit.entity.EntityType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Config lookups on the spawn and chunk-load paths. resolve() is the raw merge that only /st info still uses;
+// effective() and getSpawnCap() are the precompiled table by world name; effectiveBySlot() is what the spawn
+// and chunk paths read, the world's table found by its LiveCounts slot.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SettingsBenchmark {
+
+    private static final EntityType[] TYPES = {
+            EntityType.ZOMBIE, EntityType.SKELETON, EntityType.BLAZE, EntityType.SPIDER,
+            EntityType.CAVE_SPIDER, EntityType.WITHER, EntityType.SILVERFISH, EntityType.MAGMA_CUBE
+    };
+    private static final String[] WORLDS = { "world", "world_nether", "world_the_end", "resource" };
+
+    private Settings settings;
+    private int i;
+
+    @Setup
+    public void setup() {
+        settings = Fixtures.settings();
+    }
+
+    private EntityType type() {
+        return TYPES[i & (TYPES.length - 1)];
+    }
+
+    private String world() {
+        return WORLDS[(i++ >>> 3) & (WORLDS.length - 1)];
+    }
+
+    @Benchmark
+    public Settings.SpawnerValues resolve() {
+        EntityType t = type();
+        return settings.resolve(world(), t);
+    }
+
+    @Benchmark
+    public Settings.Effective effective() {
+        EntityType t = type();
+        return settings.effective(world(), t);
+    }
+
+    @Benchmark
+    public Settings.Effective effectiveBySlot() {
+        EntityType t = type();
+        int slot = (i >>> 3) & (WORLDS.length - 1);
+        return settings.effective(slot, world(), t, 0, -1);
+    }
+
+    @Benchmark
+    public int getSpawnCap() {
+        EntityType t = type();
+        return settings.getSpawnCap(world(), t);
+    }
+
+    @Benchmark
+    public void isEntityAllowed(Blackhole bh) {
+        for (EntityType t : TYPES) bh.consume(settings.isEntityAllowed(t));
+    }
+}
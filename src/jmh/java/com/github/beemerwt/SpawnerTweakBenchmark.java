@@ -0,0 +1,63 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.CreatureSpawner;
+import org.bukkit.entity.EntityType;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// The per-spawner decision of tweakSpawner against a stub spawner: the stamped fast path that chunk loads
+// and re-sweeps hit almost always, and the full comparison when the stamp is stale.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpawnerTweakBenchmark {
+
+    private Settings.Effective eff;
+    private PersistentDataContainer stamped;
+    private PersistentDataContainer stale;
+    private CreatureSpawner applied;
+    private CreatureSpawner vanilla;
+    private Settings.SpawnerValues vanillaValues;
+
+    @Setup
+    public void setup() {
+        eff = Fixtures.settings().effective("world", EntityType.ZOMBIE);
+        stamped = Fixtures.pdc();
+        stamped.set(Fixtures.TWEAK_KEY, PersistentDataType.INTEGER, eff.fingerprint());
+        stale = Fixtures.pdc();
+        stale.set(Fixtures.TWEAK_KEY, PersistentDataType.INTEGER, eff.fingerprint() + 1);
+
+        applied = Fixtures.spawner(Fixtures.pdc());
+        SpawnerTweak.apply(applied, eff.values());
+        vanilla = Fixtures.spawner(Fixtures.pdc());
+        vanillaValues = new Settings.SpawnerValues(
+                vanilla.getMinSpawnDelay(), vanilla.getMaxSpawnDelay(), vanilla.getSpawnCount(), -1,
+                vanilla.getMaxNearbyEntities(), vanilla.getRequiredPlayerRange(), vanilla.getSpawnRange(), -1, -1, -1);
+    }
+
+    @Benchmark
+    public boolean stampMatches() {
+        return SpawnerTweak.isCurrent(stamped, Fixtures.TWEAK_KEY, eff.fingerprint());
+    }
+
+    @Benchmark
+    public boolean stampStale() {
+        return SpawnerTweak.isCurrent(stale, Fixtures.TWEAK_KEY, eff.fingerprint());
+    }
+
+    // Stale stamp but values already in place: six reads, no writes.
+    @Benchmark
+    public boolean compareUnchanged() {
+        return SpawnerTweak.apply(applied, eff.values());
+    }
+
+    // Alternates between two value sets so every call rewrites all six properties.
+    @Benchmark
+    public boolean rewrite() {
+        SpawnerTweak.apply(vanilla, eff.values());
+        return SpawnerTweak.apply(vanilla, vanillaValues);
+    }
+}
@@ -0,0 +1,250 @@
+package com.github.beemerwt;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+// Drives /st applyall sweeps: at most one per world, all sharing a per-tick time budget that halves while
+// the server's average tick time is above target and grows back while there is headroom.
+// On Paper the chunks are processed inline on the global tick. On Folia each chunk is handed to its region;
+// the global tick dispatches as many chunks as the budget covers at the measured per-chunk cost.
+final class ApplyAllScheduler {
+
+    private static final int PROGRESS_EVERY = 2000; // chunks
+    private static final long INITIAL_CHUNK_COST = 50_000; // ns, until measured
+
+    enum State { RUNNING, PAUSED }
+
+    private final Plugin plugin;
+    private final boolean folia;
+    private final ToIntFunction<Chunk> worker; // returns the number of spawners visited; the default for sweeps
+    private final Stats stats;
+    private final Map<UUID, Sweep> sweeps = new LinkedHashMap<>();
+
+    private volatile Settings.ApplyAllBudget config;
+    private long budgetNanos;
+    private ScheduledTask task;
+
+    ApplyAllScheduler(Plugin plugin, boolean folia, ToIntFunction<Chunk> worker, Stats stats) {
+        this.plugin = plugin;
+        this.folia = folia;
+        this.worker = worker;
+        this.stats = stats;
+    }
+
+    synchronized void configure(Settings.ApplyAllBudget config) {
+        this.config = config;
+        this.budgetNanos = config.initialNanos();
+    }
+
+    // Returns false when this world already has a sweep.
+    synchronized boolean start(World world, long[] chunkKeys, CommandSender feedback) {
+        return start(world, chunkKeys, worker, feedback);
+    }
+
+    // A sweep with its own worker, e.g. one that only touches the spawners in part of each chunk.
+    synchronized boolean start(World world, long[] chunkKeys, ToIntFunction<Chunk> worker, CommandSender feedback) {
+        if (sweeps.containsKey(world.getUID())) return false;
+        sweeps.put(world.getUID(), new Sweep(world, chunkKeys, worker, feedback));
+        if (task == null) task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, t -> tick(), 1L, 1L);
+        return true;
+    }
+
+    synchronized boolean isRunning(World world) {
+        return sweeps.containsKey(world.getUID());
+    }
+
+    // world == null applies to every sweep; returns how many sweeps were affected.
+    synchronized int setState(World world, State state) {
+        int n = 0;
+        for (Sweep s : sweeps.values()) {
+            if (world != null && s.world != world) continue;
+            if (s.state == state) continue;
+            long now = System.nanoTime();
+            if (state == State.PAUSED) s.activeNanos += now - s.resumedAt;
+            else s.resumedAt = now;
+            s.state = state;
+            n++;
+        }
+        return n;
+    }
+
+    synchronized int cancel(World world) {
+        int n = 0;
+        for (Iterator<Sweep> it = sweeps.values().iterator(); it.hasNext(); ) {
+            Sweep s = it.next();
+            if (world != null && s.world != world) continue;
+            it.remove();
+            s.tell("SpawnerTweaks: applyall in '" + s.world.getName() + "' cancelled after "
+                    + s.done.get() + " / " + s.chunks.length + " chunks.");
+            n++;
+        }
+        stopIfIdle();
+        return n;
+    }
+
+    synchronized void status(CommandSender sender) {
+        if (sweeps.isEmpty()) {
+            sender.sendMessage("SpawnerTweaks: no applyall sweep is running.");
+            return;
+        }
+        sender.sendMessage("SpawnerTweaks: tick budget " + String.format(Locale.ROOT, "%.2f", budgetNanos / 1e6)
+                + " ms, average tick " + String.format(Locale.ROOT, "%.1f", ServerLoad.averageTickMillis()) + " ms");
+        for (Sweep s : sweeps.values()) {
+            sender.sendMessage("  " + s.world.getName() + ": " + s.state.name().toLowerCase(Locale.ROOT) + ", "
+                    + s.done.get() + " / " + s.chunks.length + " chunks, " + s.spawners.get() + " spawners");
+        }
+    }
+
+    synchronized void shutdown() {
+        sweeps.clear();
+        stopIfIdle();
+    }
+
+    private synchronized void tick() {
+        long t0 = stats.start();
+        adaptBudget();
+        if (folia) dispatch();
+        else runInline();
+
+        for (Iterator<Sweep> it = sweeps.values().iterator(); it.hasNext(); ) {
+            Sweep s = it.next();
+            if (s.next >= s.chunks.length && s.inFlight.get() == 0) {
+                it.remove();
+                s.finish();
+            }
+        }
+        stopIfIdle();
+        stats.stop(Stats.Timer.APPLYALL_TICK, t0);
+    }
+
+    // Round-robin one chunk at a time over running sweeps until the budget is spent.
+    private void runInline() {
+        long deadline = System.nanoTime() + budgetNanos;
+        boolean worked = true;
+        while (worked && System.nanoTime() < deadline) {
+            worked = false;
+            for (Sweep s : sweeps.values()) {
+                if (s.state != State.RUNNING || s.next >= s.chunks.length) continue;
+                s.process(s.chunks[s.next++], plugin);
+                worked = true;
+                if (System.nanoTime() >= deadline) break;
+            }
+        }
+    }
+
+    // Hand each running sweep its share of the budget as region tasks, never more than one tick's worth in flight.
+    private void dispatch() {
+        int running = 0;
+        for (Sweep s : sweeps.values()) if (s.state == State.RUNNING && s.next < s.chunks.length) running++;
+        if (running == 0) return;
+        long share = budgetNanos / running;
+        for (Sweep s : sweeps.values()) {
+            if (s.state != State.RUNNING) continue;
+            int quota = (int) Math.max(1, share / Math.max(1, s.chunkCost()));
+            quota -= s.inFlight.get();
+            while (quota-- > 0 && s.next < s.chunks.length) {
+                long key = s.chunks[s.next++];
+                s.inFlight.incrementAndGet();
+                Bukkit.getRegionScheduler().execute(plugin, s.world,
+                        SpawnerIndexFile.chunkX(key), SpawnerIndexFile.chunkZ(key), () -> {
+                            try {
+                                s.process(key, plugin);
+                            } finally {
+                                s.inFlight.decrementAndGet();
+                            }
+                        });
+            }
+        }
+    }
+
+    private void adaptBudget() {
+        Settings.ApplyAllBudget cfg = config;
+        double mspt = ServerLoad.averageTickMillis();
+        if (Double.isNaN(mspt)) return;
+        if (mspt > cfg.targetMspt()) {
+            budgetNanos = Math.max(cfg.minNanos(), budgetNanos / 2);
+        } else if (mspt < cfg.targetMspt() * 0.8) {
+            budgetNanos = Math.min(cfg.maxNanos(), budgetNanos + cfg.minNanos());
+        }
+    }
+
+    private void stopIfIdle() {
+        if (sweeps.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static final class Sweep {
+        final World world;
+        final long[] chunks;
+        final ToIntFunction<Chunk> worker;
+        final CommandSender feedback;
+        State state = State.RUNNING;
+        int next; // next chunk to hand out; owned by the scheduler
+
+        // Updated from region threads on Folia.
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicLong spawners = new AtomicLong();
+        final AtomicLong workNanos = new AtomicLong();
+
+        long resumedAt = System.nanoTime();
+        long activeNanos;
+        final AtomicInteger nextReport = new AtomicInteger(PROGRESS_EVERY);
+
+        Sweep(World world, long[] chunks, ToIntFunction<Chunk> worker, CommandSender feedback) {
+            this.world = world;
+            this.chunks = chunks;
+            this.worker = worker;
+            this.feedback = feedback;
+        }
+
+        long chunkCost() {
+            int d = done.get();
+            return d == 0 ? INITIAL_CHUNK_COST : workNanos.get() / d;
+        }
+
+        void process(long key, Plugin plugin) {
+            int cx = SpawnerIndexFile.chunkX(key), cz = SpawnerIndexFile.chunkZ(key);
+            long start = System.nanoTime();
+            if (world.isChunkLoaded(cx, cz)) {
+                try {
+                    spawners.addAndGet(worker.applyAsInt(world.getChunkAt(cx, cz)));
+                } catch (Throwable t) {
+                    plugin.getLogger().warning("ApplyAll: failed on chunk " + cx + "," + cz
+                            + " in " + world.getName() + ": " + t.getClass().getSimpleName()
+                            + ": " + t.getMessage());
+                }
+            }
+            workNanos.addAndGet(System.nanoTime() - start);
+            int d = done.incrementAndGet();
+            int report = nextReport.get();
+            if (d >= report && d < chunks.length && nextReport.compareAndSet(report, report + PROGRESS_EVERY)) {
+                tell("SpawnerTweaks: " + d + " / " + chunks.length + " chunks updated in '" + world.getName() + "'...");
+            }
+        }
+
+        void finish() {
+            double secs = Math.max(1e-9, (activeNanos + System.nanoTime() - resumedAt) / 1e9);
+            long sp = spawners.get();
+            tell("SpawnerTweaks: finished '" + world.getName() + "': " + chunks.length + " chunks, " + sp
+                    + " spawners in " + String.format(Locale.ROOT, "%.2f", secs) + "s ("
+                    + String.format(Locale.ROOT, "%.0f", chunks.length / secs) + " chunks/s, "
+                    + String.format(Locale.ROOT, "%.0f", sp / secs) + " spawners/s).");
+        }
+
+        void tell(String msg) {
+            if (feedback != null) feedback.sendMessage(msg);
+        }
+    }
+}
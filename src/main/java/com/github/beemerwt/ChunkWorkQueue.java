@@ -0,0 +1,112 @@
+package com.github.beemerwt;
+
+import org.bukkit.World;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// FIFO of chunks waiting for load-time work, deduplicated per world by chunk key. Removing a chunk
+// (unload, or an early flush) only clears its pending mark; the stale ring slot is skipped when drained.
+// On Folia the ring is not used: chunks are only marked pending and their region runs the work.
+final class ChunkWorkQueue {
+
+    interface Work {
+        void run(World world, int cx, int cz);
+    }
+
+    private final Map<World, LongIntMap> pending = new IdentityHashMap<>();
+
+    private World[] worlds = new World[256];
+    private long[] keys = new long[256];
+    private int head, tail, slots;
+    private int size;
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Returns false when the chunk is already queued.
+    synchronized boolean offer(World world, int cx, int cz) {
+        long key = SpawnerIndexFile.chunkKey(cx, cz);
+        LongIntMap set = pending.computeIfAbsent(world, w -> new LongIntMap());
+        if (set.containsKey(key)) return false;
+        set.put(key, 1);
+        if (slots == keys.length) grow();
+        worlds[tail] = world;
+        keys[tail] = key;
+        tail = (tail + 1) & (keys.length - 1);
+        slots++;
+        size++;
+        return true;
+    }
+
+    synchronized boolean contains(World world, int cx, int cz) {
+        LongIntMap set = pending.get(world);
+        return set != null && set.containsKey(SpawnerIndexFile.chunkKey(cx, cz));
+    }
+
+    // Pending mark only, for work scheduled on the chunk's own region. Returns false when already pending.
+    synchronized boolean mark(World world, int cx, int cz) {
+        LongIntMap set = pending.computeIfAbsent(world, w -> new LongIntMap());
+        long key = SpawnerIndexFile.chunkKey(cx, cz);
+        if (set.containsKey(key)) return false;
+        set.put(key, 1);
+        size++;
+        return true;
+    }
+
+    // Returns true when the chunk was pending.
+    synchronized boolean remove(World world, int cx, int cz) {
+        LongIntMap set = pending.get(world);
+        if (set == null || set.remove(SpawnerIndexFile.chunkKey(cx, cz)) == 0) return false;
+        size--;
+        return true;
+    }
+
+    synchronized void removeWorld(World world) {
+        LongIntMap set = pending.remove(world);
+        if (set != null) size -= set.size();
+    }
+
+    // Runs queued work until the budget is spent; at least one chunk per call so the queue always drains.
+    synchronized int drain(long budgetNanos, Work work) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int done = 0;
+        while (slots > 0) {
+            World w = worlds[head];
+            long key = keys[head];
+            worlds[head] = null;
+            head = (head + 1) & (keys.length - 1);
+            slots--;
+
+            LongIntMap set = pending.get(w);
+            if (set == null || set.remove(key) == 0) continue; // unloaded or flushed meanwhile
+            size--;
+            work.run(w, SpawnerIndexFile.chunkX(key), SpawnerIndexFile.chunkZ(key));
+            done++;
+            if (System.nanoTime() >= deadline) break;
+        }
+        return done;
+    }
+
+    synchronized void clear() {
+        pending.clear();
+        java.util.Arrays.fill(worlds, null);
+        head = tail = slots = size = 0;
+    }
+
+    private void grow() {
+        int n = keys.length;
+        World[] nw = new World[n * 2];
+        long[] nk = new long[n * 2];
+        for (int i = 0; i < slots; i++) {
+            int j = (head + i) & (n - 1);
+            nw[i] = worlds[j];
+            nk[i] = keys[j];
+        }
+        worlds = nw;
+        keys = nk;
+        head = 0;
+        tail = slots;
+    }
+}
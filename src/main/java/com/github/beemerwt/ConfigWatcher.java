@@ -0,0 +1,73 @@
+package com.github.beemerwt;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+// Watches one file on a daemon thread and calls onChange once writes to it have settled, so an editor
+// saving in several steps triggers a single reload.
+final class ConfigWatcher implements Runnable {
+
+    private static final long SETTLE_MS = 500;
+
+    private final Path file;
+    private final Runnable onChange;
+    private final Logger log;
+    private WatchService watcher;
+    private Thread thread;
+
+    ConfigWatcher(Path file, Runnable onChange, Logger log) {
+        this.file = file;
+        this.onChange = onChange;
+        this.log = log;
+    }
+
+    synchronized void start() throws IOException {
+        if (thread != null) return;
+        watcher = file.getFileSystem().newWatchService();
+        file.getParent().register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+        thread = new Thread(this, "SpawnerTweaks config watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        if (thread == null) return;
+        thread.interrupt();
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        boolean pending = false;
+        try {
+            while (true) {
+                WatchKey key = pending ? watcher.poll(SETTLE_MS, TimeUnit.MILLISECONDS) : watcher.take();
+                if (key == null) {
+                    pending = false;
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException ex) {
+                        log.warning("Config reload failed: " + ex);
+                    }
+                    continue;
+                }
+                for (WatchEvent<?> ev : key.pollEvents()) {
+                    if (file.getFileName().equals(ev.context())) pending = true;
+                }
+                if (!key.reset()) return; // directory is gone
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.beemerwt;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Brings live counts back in line with the mobs actually in the world, a little per tick. Two walks share
+// the budget: counted mobs are looked up by UUID in batches and released when they are gone, and the loaded
+// chunks around each known spawner's chunk are searched for tagged mobs that nobody is counting. Both resume
+// where the previous tick stopped; once both are through, the reconciler pauses before the next pass.
+// Main thread only.
+final class CountReconciler {
+
+    private static final int BATCH = 32; // counted mobs looked up per step
+
+    interface Recover {
+        // Counts the entity if it is tagged and not yet counted; returns the units added.
+        int apply(Entity ent, int homeSlot, long homeChunk);
+    }
+
+    private final Plugin plugin;
+    private final TrackedEntities tracked;
+    private final LiveCounts counts;
+    private final EntityTypeSet trackedTypes;
+    private final Function<World, SpawnerIndex.WorldIndex> index;
+    private final Recover recover;
+    private final Stats stats;
+
+    private Settings.Reconcile config;
+    private ScheduledTask task;
+
+    // Walk over counted mobs.
+    private final long[] cursor = new long[1];
+    private final int[] ids = new int[BATCH];
+    private final long[] most = new long[BATCH], least = new long[BATCH];
+
+    private int pauseTicks;
+    private boolean trackedDone, chunksDone;
+
+    // Walk over spawner chunks, one world at a time; worlds is null between passes.
+    private List<World> worlds;
+    private int worldAt;
+    private World world;
+    private long[] spawnerChunks = new long[0];
+    private int chunkAt;
+    private final LongIntMap searched = new LongIntMap(); // chunks already searched this world pass
+
+    // Totals since enable, for /st stats; counted whether or not stats are collected.
+    private long released, recovered, passes;
+
+    CountReconciler(Plugin plugin, TrackedEntities tracked, LiveCounts counts, EntityTypeSet trackedTypes,
+                    Function<World, SpawnerIndex.WorldIndex> index, Recover recover, Stats stats) {
+        this.plugin = plugin;
+        this.tracked = tracked;
+        this.counts = counts;
+        this.trackedTypes = trackedTypes;
+        this.index = index;
+        this.recover = recover;
+        this.stats = stats;
+    }
+
+    void configure(Settings.Reconcile config, boolean folia) {
+        this.config = config;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (!config.enabled()) return;
+        if (folia) {
+            // Mobs can only be looked up by UUID, and foreign chunks read, from the main thread.
+            plugin.getLogger().warning("reconcile is not supported on Folia; ignoring it.");
+            return;
+        }
+        task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, t -> tick(), 1L, 1L);
+    }
+
+    void shutdown() {
+        if (task != null) task.cancel();
+        task = null;
+        world = null;
+        worlds = null;
+        spawnerChunks = new long[0];
+    }
+
+    String summary() {
+        return "reconcile: released=" + released + " recovered=" + recovered + " passes=" + passes
+                + (task == null ? " (off)" : "");
+    }
+
+    private void tick() {
+        if (pauseTicks > 0) {
+            pauseTicks--;
+            return;
+        }
+        long t0 = stats.start();
+        long deadline = System.nanoTime() + config.budgetNanos();
+        do {
+            if (!trackedDone) trackedDone = tracked.size() == 0 || !checkTracked();
+            if (!chunksDone) chunksDone = !searchNextChunk();
+            if (trackedDone && chunksDone) {
+                trackedDone = chunksDone = false;
+                passes++;
+                pauseTicks = config.pauseTicks();
+                break;
+            }
+        } while (System.nanoTime() < deadline);
+        stats.stop(Stats.Timer.RECONCILE_TICK, t0);
+    }
+
+    // One batch of counted mobs; false once the walk has wrapped around.
+    private boolean checkTracked() {
+        int n = tracked.sample(cursor, ids, most, least);
+        for (int i = 0; i < n; i++) {
+            stats.count(Stats.Counter.RECONCILE_CHECKED);
+            Entity ent = Bukkit.getEntity(new UUID(most[i], least[i]));
+            if (ent != null && ent.isValid()) continue;
+            int units = tracked.units(ids[i]);
+            if (units > 0 && tracked.untrack(ids[i])) {
+                released += units;
+                stats.count(Stats.Counter.COUNTS_RELEASED, units);
+            }
+        }
+        return cursor[0] != 0L;
+    }
+
+    // Searches the neighbourhood of the next spawner chunk; false when the pass over every world has ended.
+    private boolean searchNextChunk() {
+        while (chunkAt >= spawnerChunks.length) {
+            if (worlds == null) {
+                worlds = List.copyOf(Bukkit.getWorlds());
+                worldAt = 0;
+            }
+            if (worldAt >= worlds.size()) {
+                worlds = null;
+                world = null;
+                return false;
+            }
+            startWorld(worlds.get(worldAt++));
+        }
+        long key = spawnerChunks[chunkAt++];
+        if (Bukkit.getWorld(world.getUID()) == null) {
+            chunkAt = spawnerChunks.length; // unloaded meanwhile
+            return true;
+        }
+        int scx = SpawnerIndexFile.chunkX(key), scz = SpawnerIndexFile.chunkZ(key);
+        if (!world.isChunkLoaded(scx, scz)) return true;
+        int r = config.chunkRadius();
+        int slot = counts.slot(world.getUID());
+        for (int cz = scz - r; cz <= scz + r; cz++) {
+            for (int cx = scx - r; cx <= scx + r; cx++) {
+                long ck = SpawnerIndexFile.chunkKey(cx, cz);
+                if (searched.containsKey(ck) || !world.isChunkLoaded(cx, cz)) continue;
+                searched.put(ck, 1);
+                Chunk c = world.getChunkAt(cx, cz);
+                if (!c.isEntitiesLoaded()) continue; // counted by EntitiesLoadEvent when they arrive
+                for (Entity ent : c.getEntities()) {
+                    // Types never counted since enable are skipped, as the removal events do; this saves a
+                    // tag read on every other entity near a spawner.
+                    if (!trackedTypes.contains(ent.getType())) continue;
+                    int units = recover.apply(ent, slot, ck);
+                    recovered += units;
+                    stats.count(Stats.Counter.COUNTS_RECOVERED, units);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void startWorld(World w) {
+        world = w;
+        searched.clear();
+        SpawnerIndex.WorldIndex wi = index.apply(w);
+        long[] keys = new long[wi.chunkCount()];
+        int[] n = {0};
+        wi.forEachChunk((key, entries) -> {
+            if (n[0] < keys.length) keys[n[0]++] = key;
+        });
+        spawnerChunks = n[0] == keys.length ? keys : Arrays.copyOf(keys, n[0]);
+        chunkAt = 0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.beemerwt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// On-disk layout of the live counts (big-endian), written on shutdown and at intervals, read once at startup:
+//   int magic, int version
+//   int worldCount, worldCount x (long most, long least)
+//   int chunkCount, chunkCount x (int world, long chunkKey, int n, n x (int spawnerWorld, long spawnerKey, int units))
+// World fields index the world list. Each chunk record holds the spawner mobs stored in that chunk.
+final class CountSnapshot {
+
+    static final int MAGIC   = 0x53544353; // "STCS"
+    static final int VERSION = 1;
+
+    // Chunk entries are pairs: spawnerKey, then ((long) spawnerWorld << 32) | units.
+    // chunks.get(w) holds the chunks of world w, keyed by chunk key.
+    record Contents(long[] worlds, List<LongObjectMap<long[]>> chunks) { }
+
+    private CountSnapshot() { }
+
+    static long meta(int spawnerWorld, int units) {
+        return ((long) spawnerWorld << 32) | (units & 0xFFFFFFFFL);
+    }
+
+    static int world(long meta) {
+        return (int) (meta >> 32);
+    }
+
+    static int units(long meta) {
+        return (int) meta;
+    }
+
+    // Adds units for one spawner to a chunk's entry pairs, merging with the spawner's existing pair.
+    static long[] add(long[] entries, int spawnerWorld, long spawnerKey, int units) {
+        if (entries != null) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (entries[i] == spawnerKey && world(entries[i + 1]) == spawnerWorld) {
+                    entries[i + 1] = meta(spawnerWorld, units(entries[i + 1]) + units);
+                    return entries;
+                }
+            }
+        }
+        long[] next = entries == null ? new long[2] : Arrays.copyOf(entries, entries.length + 2);
+        next[next.length - 2] = spawnerKey;
+        next[next.length - 1] = meta(spawnerWorld, units);
+        return next;
+    }
+
+    // The chunk map of a world, created (along with any lower ones) on first use.
+    static LongObjectMap<long[]> chunksOf(List<LongObjectMap<long[]>> chunks, int world) {
+        while (chunks.size() <= world) chunks.add(new LongObjectMap<>());
+        return chunks.get(world);
+    }
+
+    static Contents read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC) throw new IOException("not a count snapshot: " + file);
+            int version = buf.getInt();
+            if (version != VERSION) throw new IOException("unsupported count snapshot version " + version + ": " + file);
+
+            long[] worlds = new long[buf.getInt() * 2];
+            buf.asLongBuffer().get(worlds);
+            buf.position(buf.position() + worlds.length * Long.BYTES);
+
+            List<LongObjectMap<long[]>> chunks = new ArrayList<>();
+            int chunkCount = buf.getInt();
+            for (int i = 0; i < chunkCount; i++) {
+                int world = buf.getInt();
+                long key = buf.getLong();
+                long[] entries = new long[buf.getInt() * 2];
+                for (int j = 0; j < entries.length; j += 2) {
+                    int spawnerWorld = buf.getInt();
+                    entries[j] = buf.getLong();
+                    entries[j + 1] = meta(spawnerWorld, buf.getInt());
+                    if (world < 0 || world * 2 >= worlds.length || spawnerWorld < 0 || spawnerWorld * 2 >= worlds.length) {
+                        throw new IOException("world index out of range");
+                    }
+                }
+                if (entries.length > 0) chunksOf(chunks, world).put(key, entries);
+            }
+            return new Contents(worlds, chunks);
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt count snapshot " + file + ": " + e, e);
+        }
+    }
+
+    static ByteBuffer encode(Contents c) {
+        long size = 4 + 4 + 4 + (long) c.worlds().length * 8 + 4;
+        int chunkCount = 0;
+        for (LongObjectMap<long[]> m : c.chunks()) {
+            chunkCount += m.size();
+            long[] entryTotal = new long[1];
+            m.forEach((k, v) -> entryTotal[0] += v.length / 2);
+            size += (long) m.size() * (4 + 8 + 4) + entryTotal[0] * (4 + 8 + 4);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(Math.toIntExact(size));
+        buf.putInt(MAGIC).putInt(VERSION);
+        buf.putInt(c.worlds().length / 2);
+        for (long id : c.worlds()) buf.putLong(id);
+        buf.putInt(chunkCount);
+        for (int w = 0; w < c.chunks().size(); w++) {
+            int world = w;
+            c.chunks().get(w).forEach((k, entries) -> {
+                buf.putInt(world).putLong(k).putInt(entries.length / 2);
+                for (int j = 0; j < entries.length; j += 2) {
+                    buf.putInt(world(entries[j + 1])).putLong(entries[j]).putInt(units(entries[j + 1]));
+                }
+            });
+        }
+        return buf.flip();
+    }
+}
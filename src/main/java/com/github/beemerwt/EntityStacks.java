@@ -0,0 +1,53 @@
+package com.github.beemerwt;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+// Stack size stored on a spawner mob that stands for several. Entities without the key are a single unit.
+// The "xN" name is flagged as ours in the PDC; any other name (a name tag, another plugin) is left alone.
+final class EntityStacks {
+
+    private final NamespacedKey key;
+    private final NamespacedKey labelKey;
+
+    EntityStacks(NamespacedKey key, NamespacedKey labelKey) {
+        this.key = key;
+        this.labelKey = labelKey;
+    }
+
+    int read(PersistentDataContainer pdc) {
+        Integer n = pdc.get(key, PersistentDataType.INTEGER);
+        return n == null || n < 1 ? 1 : n;
+    }
+
+    void write(Entity ent, int units, boolean showCount) {
+        PersistentDataContainer pdc = ent.getPersistentDataContainer();
+        // Read before the size changes: a label is only ours while it still reads as the size we wrote.
+        String name = ent.getCustomName();
+        boolean ours = pdc.has(labelKey, PersistentDataType.BYTE) && label(read(pdc)).equals(name);
+        if (units <= 1) {
+            pdc.remove(key);
+        } else {
+            pdc.set(key, PersistentDataType.INTEGER, units);
+        }
+        if (!ours) {
+            pdc.remove(labelKey); // renamed since we labelled it
+            if (!showCount || name != null) return;
+        }
+        if (showCount && units > 1) {
+            ent.setCustomName(label(units));
+            ent.setCustomNameVisible(true);
+            pdc.set(labelKey, PersistentDataType.BYTE, (byte) 1);
+        } else if (ours) {
+            ent.setCustomName(null);
+            ent.setCustomNameVisible(false);
+            pdc.remove(labelKey);
+        }
+    }
+
+    private static String label(int units) {
+        return "x" + units;
+    }
+}
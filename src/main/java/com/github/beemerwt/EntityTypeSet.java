@@ -0,0 +1,23 @@
+package com.github.beemerwt;
+
+import org.bukkit.entity.EntityType;
+
+// Grow-only set of entity types, read without locks on every entity removal. Types are only ever added
+// (a handful over a server's lifetime), so each add publishes a fresh copy of the flags.
+final class EntityTypeSet {
+
+    private volatile boolean[] flags = new boolean[EntityType.values().length];
+
+    boolean contains(EntityType type) {
+        return type != null && flags[type.ordinal()];
+    }
+
+    void add(EntityType type) {
+        if (type == null || flags[type.ordinal()]) return;
+        synchronized (this) {
+            boolean[] next = flags.clone();
+            next[type.ordinal()] = true;
+            flags = next;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+// Live spawner-mob counts keyed by (world slot, spawner block key). Entries are spread over lock stripes
+// by key hash so spawn checks on different region threads (Folia) practically never share a lock; on a
+// single main thread every lock is uncontended. Worlds are found by comparing UUID halves so decoded origin
+// tags never need a UUID object, and each world gets a stable slot number callers may keep instead.
+// Optionally the same counts are also summed per square grid cell (2^cellShift blocks on a side, any Y),
+// so the live mobs of a whole spawner cluster are nine cell reads away.
+final class LiveCounts {
+
+    private static final int STRIPES = 64; // power of two
+    static final int NO_GRID = -1;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Stripe[] cells = new Stripe[STRIPES];
+    private volatile int cellShift = NO_GRID;
+    private volatile long[] worldIds = new long[0]; // most, least pairs; copy-on-write
+
+    private static final class Stripe {
+        LongIntMap[] byWorld = new LongIntMap[2];
+
+        LongIntMap map(int worldSlot, boolean create) {
+            if (worldSlot >= byWorld.length) {
+                if (!create) return null;
+                byWorld = Arrays.copyOf(byWorld, Math.max(worldSlot + 1, byWorld.length * 2));
+            }
+            LongIntMap m = byWorld[worldSlot];
+            if (m == null && create) byWorld[worldSlot] = m = new LongIntMap();
+            return m;
+        }
+    }
+
+    LiveCounts() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+            cells[i] = new Stripe();
+        }
+    }
+
+    int get(UUID world, long blockKey) {
+        int slot = find(worldIds, world.getMostSignificantBits(), world.getLeastSignificantBits());
+        return slot < 0 ? 0 : get(slot, blockKey);
+    }
+
+    int get(int worldSlot, long blockKey) {
+        Stripe s = stripe(worldSlot, blockKey);
+        synchronized (s) {
+            LongIntMap m = s.map(worldSlot, false);
+            return m == null ? 0 : m.get(blockKey);
+        }
+    }
+
+    // Reaching zero drops the entry; decrements of untracked spawners are no-ops. The cell moves by what the
+    // spawner's count actually did, so a clamped decrement never takes from its neighbours' sums.
+    int add(int worldSlot, long blockKey, int delta) {
+        Stripe s = stripe(worldSlot, blockKey);
+        int v, applied;
+        synchronized (s) {
+            LongIntMap m = s.map(worldSlot, delta > 0);
+            if (m == null) return 0;
+            int old = m.get(blockKey);
+            v = m.addTo(blockKey, delta);
+            applied = v - old;
+        }
+        // Outside the spawner stripe: cell stripes are only ever taken on their own.
+        int shift = cellShift;
+        if (shift != NO_GRID && applied != 0) addCell(worldSlot, cellOf(blockKey, shift), applied);
+        return v;
+    }
+
+    // Live mobs of every spawner in the 3x3 cells around this one; 0 while the grid is off.
+    int clusterCount(int worldSlot, long blockKey) {
+        int shift = cellShift;
+        if (shift == NO_GRID) return 0;
+        int cx = Block.getBlockKeyX(blockKey) >> shift;
+        int cz = Block.getBlockKeyZ(blockKey) >> shift;
+        int sum = 0;
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                long cell = SpawnerIndexFile.chunkKey(cx + dx, cz + dz);
+                Stripe s = stripe(worldSlot, cell, cells);
+                synchronized (s) {
+                    LongIntMap m = s.map(worldSlot, false);
+                    if (m != null) sum += m.get(cell);
+                }
+            }
+        }
+        return sum;
+    }
+
+    int clusterCount(UUID world, long blockKey) {
+        int slot = find(worldIds, world.getMostSignificantBits(), world.getLeastSignificantBits());
+        return slot < 0 ? 0 : clusterCount(slot, blockKey);
+    }
+
+    // Switches the cell size (or turns the grid off with NO_GRID) and rebuilds the sums from the
+    // per-spawner counts. Only happens on reload; spawns racing the rebuild may be off by a few until
+    // their mobs are gone.
+    synchronized void setCellShift(int shift) {
+        if (shift == cellShift) return;
+        cellShift = NO_GRID;
+        for (Stripe s : cells) {
+            synchronized (s) {
+                for (LongIntMap m : s.byWorld) if (m != null) m.clear();
+            }
+        }
+        if (shift == NO_GRID) return;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                for (int w = 0; w < s.byWorld.length; w++) {
+                    LongIntMap m = s.byWorld[w];
+                    if (m == null) continue;
+                    int worldSlot = w;
+                    m.forEach((key, count) -> addCell(worldSlot, cellOf(key, shift), count));
+                }
+            }
+        }
+        cellShift = shift;
+    }
+
+    int slot(UUID world) {
+        return slot(world.getMostSignificantBits(), world.getLeastSignificantBits());
+    }
+
+    // Slot of the world, created on first use. Slots are never reused, even across clear().
+    int slot(long most, long least) {
+        int slot = find(worldIds, most, least);
+        if (slot >= 0) return slot;
+        synchronized (this) {
+            long[] ids = worldIds;
+            slot = find(ids, most, least);
+            if (slot >= 0) return slot;
+            long[] next = Arrays.copyOf(ids, ids.length + 2);
+            next[ids.length] = most;
+            next[ids.length + 1] = least;
+            worldIds = next;
+            return ids.length / 2;
+        }
+    }
+
+    // Most, least pairs indexed by slot. Never modified; a new world replaces the array.
+    long[] worldIds() {
+        return worldIds;
+    }
+
+    // Spawners with a live count in any world; walks every stripe, so not for hot paths.
+    int size() {
+        return size(stripes);
+    }
+
+    // Grid cells with a live count in any world; 0 while the grid is off.
+    int cellCount() {
+        return size(cells);
+    }
+
+    void clear() {
+        for (Stripe s : cells) {
+            synchronized (s) {
+                for (LongIntMap m : s.byWorld) if (m != null) m.clear();
+            }
+        }
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                for (LongIntMap m : s.byWorld) if (m != null) m.clear();
+            }
+        }
+    }
+
+    private static int size(Stripe[] in) {
+        int n = 0;
+        for (Stripe s : in) {
+            synchronized (s) {
+                for (LongIntMap m : s.byWorld) if (m != null) n += m.size();
+            }
+        }
+        return n;
+    }
+
+    private Stripe stripe(int worldSlot, long blockKey) {
+        return stripe(worldSlot, blockKey, stripes);
+    }
+
+    private static Stripe stripe(int worldSlot, long key, Stripe[] in) {
+        return in[(int) LongIntMap.mix(key + worldSlot) & (STRIPES - 1)];
+    }
+
+    private void addCell(int worldSlot, long cell, int delta) {
+        Stripe s = stripe(worldSlot, cell, cells);
+        synchronized (s) {
+            LongIntMap m = s.map(worldSlot, delta > 0);
+            if (m != null) m.addTo(cell, delta);
+        }
+    }
+
+    private static long cellOf(long blockKey, int shift) {
+        return SpawnerIndexFile.chunkKey(Block.getBlockKeyX(blockKey) >> shift, Block.getBlockKeyZ(blockKey) >> shift);
+    }
+
+    private static int find(long[] ids, long most, long least) {
+        for (int i = 0; i < ids.length; i += 2) {
+            if (ids[i] == most && ids[i + 1] == least) return i / 2;
+        }
+        return -1;
+    }
+}
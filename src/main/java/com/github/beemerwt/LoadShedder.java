@@ -0,0 +1,77 @@
+package com.github.beemerwt;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.List;
+import java.util.Locale;
+
+// Tracks the server's rolling average tick time and moves between shedding levels one step per check:
+// up when the next level's threshold is reached, down once the tick time is hysteresis below the current
+// level's threshold. Spawners pick the level up through their fingerprint the next time they are tweaked;
+// refresh re-queues the ones near players so active farms follow without a chunk reload.
+final class LoadShedder {
+
+    private final Plugin plugin;
+    private final Runnable refresh;
+
+    private volatile int level;
+    private Settings.LoadShedding config;
+    private ScheduledTask task;
+
+    LoadShedder(Plugin plugin, Runnable refresh) {
+        this.plugin = plugin;
+        this.refresh = refresh;
+    }
+
+    int level() {
+        return level;
+    }
+
+    synchronized void configure(Settings.LoadShedding config, boolean folia) {
+        this.config = config;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (!config.enabled() || folia) {
+            // Folia has no server-wide tick time to follow.
+            if (config.enabled()) plugin.getLogger().warning("load-shedding is not supported on Folia; ignoring it.");
+            if (level != 0) {
+                level = 0;
+                refresh.run();
+            }
+            return;
+        }
+        if (level > config.levels().size()) level = config.levels().size();
+        task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, t -> check(),
+                config.checkTicks(), config.checkTicks());
+    }
+
+    synchronized void shutdown() {
+        if (task != null) task.cancel();
+        task = null;
+        level = 0;
+    }
+
+    private synchronized void check() {
+        double mspt = ServerLoad.averageTickMillis();
+        if (Double.isNaN(mspt)) return;
+        List<Settings.ShedLevel> levels = config.levels();
+        int cur = level;
+        int next = cur;
+        if (cur < levels.size() && mspt >= levels.get(cur).mspt()) {
+            next = cur + 1;
+        } else if (cur > 0 && mspt < levels.get(cur - 1).mspt() - config.hysteresisMspt()) {
+            next = cur - 1;
+        }
+        if (next != cur) {
+            level = next;
+            plugin.getLogger().info("Load shedding level " + cur + " -> " + next + " (average tick "
+                    + String.format(Locale.ROOT, "%.1f", mspt) + " ms)");
+        }
+        // While shedding, players keep walking into loaded chunks tweaked at another level.
+        if (next != cur || next > 0) refresh.run();
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.beemerwt;
+
+import java.util.Arrays;
+
+// Open-addressing long -> int map (linear probing, backward-shift deletion). Absent keys read as 0.
+final class LongIntMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    // Key 0 is a valid block key (0,0,0), so it lives outside the table instead of acting as "empty".
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    interface Visitor {
+        void visit(long key, int value);
+    }
+
+    LongIntMap() {
+        this(16);
+    }
+
+    LongIntMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        allocate(cap);
+    }
+
+    int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int get(long key) {
+        if (key == 0) return hasZeroKey ? zeroValue : 0;
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) return values[i];
+            if (k == 0) return 0;
+            i = (i + 1) & mask;
+        }
+    }
+
+    boolean containsKey(long key) {
+        if (key == 0) return hasZeroKey;
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) return true;
+            if (k == 0) return false;
+            i = (i + 1) & mask;
+        }
+    }
+
+    void put(long key, int value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size >= resizeAt) rehash(keys.length << 1);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    // Adds delta and returns the new value. Entries that drop to 0 or below are removed.
+    int addTo(long key, int delta) {
+        int v = get(key) + delta;
+        if (v <= 0) {
+            remove(key);
+            return 0;
+        }
+        put(key, v);
+        return v;
+    }
+
+    // Returns the removed value, or 0 when the key was absent.
+    int remove(long key) {
+        if (key == 0) {
+            int v = hasZeroKey ? zeroValue : 0;
+            hasZeroKey = false;
+            zeroValue = 0;
+            return v;
+        }
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == 0) return 0;
+            if (k == key) break;
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        shiftBack(i);
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    void forEach(Visitor v) {
+        if (hasZeroKey) v.visit(0L, zeroValue);
+        long[] ks = keys;
+        int[] vs = values;
+        for (int i = 0; i < ks.length; i++) {
+            if (ks[i] != 0) v.visit(ks[i], vs[i]);
+        }
+    }
+
+    // Close the gap left at 'gap' by moving later entries of the same probe run back.
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            long k = keys[i];
+            if (k == 0) break;
+            int home = slot(k);
+            // Move k into the gap unless its home lies cyclically in (gap, i].
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    private int slot(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void allocate(int cap) {
+        keys = new long[cap];
+        values = new int[cap];
+        mask = cap - 1;
+        resizeAt = (int) (cap * LOAD_FACTOR);
+    }
+
+    private void rehash(int cap) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(cap);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k == 0) continue;
+            int j = slot(k);
+            while (keys[j] != 0) j = (j + 1) & mask;
+            keys[j] = k;
+            values[j] = oldValues[i];
+        }
+    }
+}
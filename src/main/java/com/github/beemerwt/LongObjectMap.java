@@ -0,0 +1,156 @@
+package com.github.beemerwt;
+
+import java.util.Arrays;
+
+// Open-addressing long -> V map (linear probing, backward-shift deletion). Null values are not stored.
+final class LongObjectMap<V> {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private Object zeroValue; // key 0 is a valid chunk/block key; null when absent
+
+    interface Visitor<V> {
+        void visit(long key, V value);
+    }
+
+    LongObjectMap() {
+        this(16);
+    }
+
+    LongObjectMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        allocate(cap);
+    }
+
+    int size() {
+        return size + (zeroValue != null ? 1 : 0);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == 0) return (V) zeroValue;
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) return (V) values[i];
+            if (k == 0) return null;
+            i = (i + 1) & mask;
+        }
+    }
+
+    // Returns the previous value. Putting null removes the key.
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (value == null) return remove(key);
+        if (key == 0) {
+            V old = (V) zeroValue;
+            zeroValue = value;
+            return old;
+        }
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size >= resizeAt) rehash(keys.length << 1);
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        if (key == 0) {
+            V old = (V) zeroValue;
+            zeroValue = null;
+            return old;
+        }
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == 0) return null;
+            if (k == key) break;
+            i = (i + 1) & mask;
+        }
+        V removed = (V) values[i];
+        shiftBack(i);
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        size = 0;
+        zeroValue = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Visitor<? super V> v) {
+        if (zeroValue != null) v.visit(0L, (V) zeroValue);
+        long[] ks = keys;
+        Object[] vs = values;
+        for (int i = 0; i < ks.length; i++) {
+            if (ks[i] != 0) v.visit(ks[i], (V) vs[i]);
+        }
+    }
+
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            long k = keys[i];
+            if (k == 0) break;
+            int home = slot(k);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private int slot(long key) {
+        return (int) LongIntMap.mix(key) & mask;
+    }
+
+    private void allocate(int cap) {
+        keys = new long[cap];
+        values = new Object[cap];
+        mask = cap - 1;
+        resizeAt = (int) (cap * LOAD_FACTOR);
+    }
+
+    private void rehash(int cap) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(cap);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k == 0) continue;
+            int j = slot(k);
+            while (keys[j] != 0) j = (j + 1) & mask;
+            keys[j] = k;
+            values[j] = oldValues[i];
+        }
+    }
+}
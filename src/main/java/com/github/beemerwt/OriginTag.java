@@ -0,0 +1,73 @@
+package com.github.beemerwt;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.UUID;
+
+// Origin tag stored on spawner mobs: [worldMost, worldLeast, blockKey] as a long array.
+// Tags written by older versions as "uuid|x|y|z" strings are rewritten the first time they are read.
+final class OriginTag {
+
+    static final int WORLD_MOST  = 0;
+    static final int WORLD_LEAST = 1;
+    static final int BLOCK_KEY   = 2;
+
+    private static final PersistentDataType<long[], long[]> TYPE = PersistentDataType.LONG_ARRAY;
+
+    private final NamespacedKey key;
+
+    OriginTag(NamespacedKey key) {
+        this.key = key;
+    }
+
+    boolean isTagged(PersistentDataContainer pdc) {
+        return pdc.has(key);
+    }
+
+    void write(PersistentDataContainer pdc, UUID worldId, long blockKey) {
+        pdc.set(key, TYPE, new long[] { worldId.getMostSignificantBits(), worldId.getLeastSignificantBits(), blockKey });
+    }
+
+    // Returns null when the holder is untagged or the tag is unreadable.
+    long[] read(PersistentDataContainer pdc) {
+        long[] v;
+        try {
+            v = pdc.get(key, TYPE);
+        } catch (IllegalArgumentException legacy) {
+            return migrate(pdc);
+        }
+        return v != null && v.length == 3 ? v : null;
+    }
+
+    private long[] migrate(PersistentDataContainer pdc) {
+        String s;
+        try {
+            s = pdc.get(key, PersistentDataType.STRING);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        long[] v = s == null ? null : decodeLegacy(s);
+        if (v != null) pdc.set(key, TYPE, v);
+        return v;
+    }
+
+    // "uuid|x|y|z" without the regex split.
+    static long[] decodeLegacy(String s) {
+        try {
+            int a = s.indexOf('|');
+            int b = s.indexOf('|', a + 1);
+            int c = s.indexOf('|', b + 1);
+            if (a < 0 || b < 0 || c < 0) return null;
+            UUID world = UUID.fromString(s.substring(0, a));
+            int x = Integer.parseInt(s, a + 1, b, 10);
+            int y = Integer.parseInt(s, b + 1, c, 10);
+            int z = Integer.parseInt(s, c + 1, s.length(), 10);
+            return new long[] { world.getMostSignificantBits(), world.getLeastSignificantBits(), Block.getBlockKey(x, y, z) };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.beemerwt;
+
+import java.util.Arrays;
+
+// Spawner mobs stored in chunks whose entities are not loaded, tallied per chunk. Their units stay in the
+// live counts while parked, so a spawner's cap still sees them; when the chunk's entities load again the
+// tally is dropped and the mobs actually there are tracked one by one instead. That reload is what keeps
+// a restored snapshot honest: a chunk's saved tally only lives until the chunk is seen.
+// Entries use CountSnapshot's pair layout with world slots. A stripe lock is taken after a TrackedEntities
+// table lock and never held while LiveCounts is updated.
+final class ParkedCounts {
+
+    private static final int STRIPES = 64; // power of two
+
+    interface Visitor {
+        void visit(int worldSlot, long chunkKey, long[] entries);
+    }
+
+    private final LiveCounts counts;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private static final class Stripe {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        LongObjectMap<long[]>[] byWorld = new LongObjectMap[2];
+
+        LongObjectMap<long[]> map(int worldSlot, boolean create) {
+            if (worldSlot >= byWorld.length) {
+                if (!create) return null;
+                byWorld = Arrays.copyOf(byWorld, Math.max(worldSlot + 1, byWorld.length * 2));
+            }
+            LongObjectMap<long[]> m = byWorld[worldSlot];
+            if (m == null && create) byWorld[worldSlot] = m = new LongObjectMap<>();
+            return m;
+        }
+    }
+
+    ParkedCounts(LiveCounts counts) {
+        this.counts = counts;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    // An entity leaving with its chunk: its units move here and the spawner's live count is unchanged.
+    void park(int worldSlot, long chunkKey, int spawnerSlot, long spawnerKey, int units) {
+        Stripe s = stripe(worldSlot, chunkKey);
+        synchronized (s) {
+            LongObjectMap<long[]> m = s.map(worldSlot, true);
+            m.put(chunkKey, CountSnapshot.add(m.get(chunkKey), spawnerSlot, spawnerKey, units));
+        }
+    }
+
+    // A saved tally from the snapshot; unlike park, its units are added to the live counts.
+    void restore(int worldSlot, long chunkKey, long[] entries) {
+        Stripe s = stripe(worldSlot, chunkKey);
+        synchronized (s) {
+            LongObjectMap<long[]> m = s.map(worldSlot, true);
+            long[] merged = m.get(chunkKey);
+            for (int i = 0; i < entries.length; i += 2) {
+                merged = CountSnapshot.add(merged, CountSnapshot.world(entries[i + 1]), entries[i],
+                        CountSnapshot.units(entries[i + 1]));
+            }
+            m.put(chunkKey, merged);
+        }
+        addAll(entries, 1);
+    }
+
+    // Called as the chunk's entities load, before they are tracked individually. Returns the units dropped.
+    int release(int worldSlot, long chunkKey) {
+        Stripe s = stripe(worldSlot, chunkKey);
+        long[] entries;
+        synchronized (s) {
+            LongObjectMap<long[]> m = s.map(worldSlot, false);
+            entries = m == null ? null : m.remove(chunkKey);
+        }
+        return entries == null ? 0 : addAll(entries, -1);
+    }
+
+    // Entry arrays are live; visitors must copy what they keep.
+    void forEach(Visitor v) {
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                for (int w = 0; w < s.byWorld.length; w++) {
+                    LongObjectMap<long[]> m = s.byWorld[w];
+                    if (m == null) continue;
+                    int worldSlot = w;
+                    m.forEach((k, entries) -> v.visit(worldSlot, k, entries));
+                }
+            }
+        }
+    }
+
+    int chunks() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                for (LongObjectMap<long[]> m : s.byWorld) if (m != null) n += m.size();
+            }
+        }
+        return n;
+    }
+
+    private int addAll(long[] entries, int sign) {
+        int total = 0;
+        for (int i = 0; i < entries.length; i += 2) {
+            int units = CountSnapshot.units(entries[i + 1]);
+            counts.add(CountSnapshot.world(entries[i + 1]), entries[i], sign * units);
+            total += units;
+        }
+        return total;
+    }
+
+    private Stripe stripe(int worldSlot, long chunkKey) {
+        return stripes[(int) LongIntMap.mix(chunkKey + worldSlot) & (STRIPES - 1)];
+    }
+}
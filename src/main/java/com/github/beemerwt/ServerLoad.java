@@ -0,0 +1,30 @@
+package com.github.beemerwt;
+
+import org.bukkit.Bukkit;
+
+// Server-wide tick time, or NaN where the server does not report one (Folia has no single main tick).
+final class ServerLoad {
+
+    private static volatile boolean unsupported;
+
+    private ServerLoad() { }
+
+    static double averageTickMillis() {
+        if (unsupported) return Double.NaN;
+        try {
+            return Bukkit.getAverageTickTime();
+        } catch (UnsupportedOperationException e) {
+            unsupported = true;
+            return Double.NaN;
+        }
+    }
+
+    static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.github.beemerwt;
 
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.block.Biome;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.EntityType;
@@ -13,9 +16,32 @@ record Settings(
         Set<EntityType> whitelist,
         Set<EntityType> blacklist,
         boolean disableSafetyCaps,
-        boolean disableSpawnCaps)
+        boolean disableSpawnCaps,
+        ApplyAllBudget applyAll,
+        long chunkLoadBudgetNanos,
+        StatsOptions stats,
+        ClusterCap cluster,
+        LoadShedding shedding,
+        Stacking stacking,
+        boolean watchConfig,
+        int countSnapshotSeconds,
+        int despawnsPerTick,
+        Reconcile reconcile,
+        SpawnerRules rules,
+        Effective[][][] baseTable,
+        Map<String, Effective[][][]> worldTables,
+        SlotTables slotTables)
 {
 
+    static final int HARD_MIN_SPAWN_DELAY   = 10;   // ticks
+    static final int HARD_MAX_SPAWN_DELAY   = 20;   // ticks
+    static final int HARD_MAX_SPAWN_COUNT   = 32;
+    static final int HARD_MAX_NEARBY        = 64;
+    static final int HARD_MAX_PLAYER_RANGE  = 64;
+    static final int HARD_MAX_SPAWN_RANGE   = 32;
+
+    private static final EntityType[] TYPES = EntityType.values();
+
     record SpawnerValues(
             int minSpawnDelay,
             int maxSpawnDelay,
@@ -23,17 +49,101 @@ record Settings(
             int spawnCap,
             int maxNearbyEntities,
             int requiredPlayerRange,
-            int spawnRange)
+            int spawnRange,
+            int spawnsPerMinute, // token bucket refill; -1 = unlimited
+            int spawnBurst,      // bucket size; -1 = the spawner's spawnCount (one full cycle)
+            int despawnSeconds)  // lifetime of spawned mobs; -1 = forever
     { }
 
+    // Fully merged and clamped values for one (world, type) slot, plus the filter decision.
+    // The fingerprint identifies what a spawner looks like once tweaked with these values.
+    record Effective(SpawnerValues values, boolean allowed, int fingerprint) { }
+
+    // World slot (as LiveCounts numbers worlds) -> that world's compiled table, filled on each slot's first
+    // lookup. A slot only ever maps to its own world's table, so racing fills store the same array.
+    static final class SlotTables {
+        private volatile Effective[][][][] bySlot = new Effective[4][][][];
+
+        Effective[][][] get(int worldSlot) {
+            Effective[][][][] a = bySlot;
+            return worldSlot < a.length ? a[worldSlot] : null;
+        }
+
+        synchronized void put(int worldSlot, Effective[][][] table) {
+            Effective[][][][] next = Arrays.copyOf(bySlot, Math.max(bySlot.length, worldSlot + 1));
+            next[worldSlot] = table;
+            bySlot = next;
+        }
+    }
+
+    // Per-tick time budget for /st applyall sweeps, adapted to the server's average tick time.
+    record ApplyAllBudget(double targetMspt, long initialNanos, long minNanos, long maxNanos) { }
+
+    // Live mobs allowed from all spawners in the 3x3 grid cells around a spawner; cap -1 disables.
+    // Cells are 2^cellShift blocks wide, the smallest power of two covering the configured radius.
+    record ClusterCap(int cap, int cellShift) {
+        boolean enabled() {
+            return cap >= 0;
+        }
+    }
+
+    // A shedding level applies once the average tick time stays above mspt. Factors scale the merged
+    // values before the safety caps; counts never drop below 1.
+    record ShedLevel(double mspt, double delayFactor, double countFactor, double nearbyFactor) {
+        SpawnerValues scale(SpawnerValues v) {
+            return new SpawnerValues(
+                    scaled(v.minSpawnDelay(), delayFactor, 0),
+                    scaled(v.maxSpawnDelay(), delayFactor, 0),
+                    scaled(v.spawnCount(), countFactor, 1),
+                    v.spawnCap(),
+                    scaled(v.maxNearbyEntities(), nearbyFactor, 1),
+                    v.requiredPlayerRange(),
+                    v.spawnRange(),
+                    v.spawnsPerMinute(),
+                    v.spawnBurst(),
+                    v.despawnSeconds());
+        }
+
+        private static int scaled(int value, double factor, int floor) {
+            return value < 0 ? -1 : (int) Math.max(floor, Math.min(Integer.MAX_VALUE, Math.round(value * factor)));
+        }
+    }
+
+    // levels are sorted by mspt; level n (1-based) means levels.get(n - 1) is in force, 0 means none.
+    record LoadShedding(boolean enabled, double hysteresisMspt, int checkTicks, int playerChunkRadius,
+                        List<ShedLevel> levels) { }
+
+    // New spawns join a living mob from the same spawner within radius blocks, up to maxStack units each.
+    record Stacking(boolean enabled, double radius, int maxStack, boolean showCount) { }
+
+    // Per-tick time spent re-checking live counts against the world; 0 disables. chunkRadius is how far
+    // around each spawner's chunk loaded chunks are searched for mobs nobody counted; pauseTicks is the
+    // wait between finished passes.
+    record Reconcile(long budgetNanos, int chunkRadius, int pauseTicks) {
+        boolean enabled() {
+            return budgetNanos > 0;
+        }
+    }
+
+    // dumpIntervalSeconds <= 0 disables the periodic dump file.
+    record StatsOptions(boolean enabled, boolean jmx, int dumpIntervalSeconds) { }
+
     static Settings fromConfig(FileConfiguration cfg) {
+        return fromConfig(cfg, new ArrayList<>());
+    }
+
+    // Anything skipped or suspicious is described in problems, one readable line each.
+    static Settings fromConfig(FileConfiguration cfg, List<String> problems) {
         SpawnerValues defs = readValues(cfg.getConfigurationSection("defaults"));
+        checkDelays("defaults", defs, problems);
 
         Map<String, SpawnerValues> worldMap = new HashMap<>();
         ConfigurationSection pw = cfg.getConfigurationSection("perWorld");
         if (pw != null) {
             for (String world : pw.getKeys(false)) {
-                worldMap.put(world, readValues(pw.getConfigurationSection(world)));
+                SpawnerValues v = readValues(pw.getConfigurationSection(world));
+                checkDelays("perWorld." + world, v, problems);
+                worldMap.put(world, v);
             }
         }
 
@@ -42,29 +152,196 @@ record Settings(
         if (pe != null) {
             for (String key : pe.getKeys(false)) {
                 EntityType t = parseType(key);
-                if (t != null) {
-                    entityMap.put(t, readValues(pe.getConfigurationSection(key)));
+                if (t == null) {
+                    problems.add(unknownType("perEntity." + key, key));
+                    continue;
                 }
+                SpawnerValues v = readValues(pe.getConfigurationSection(key));
+                checkDelays("perEntity." + key, v, problems);
+                entityMap.put(t, v);
             }
         }
 
-        Set<EntityType> white = readTypeList(cfg.getStringList("filters.whitelist"));
-        Set<EntityType> black = readTypeList(cfg.getStringList("filters.blacklist"));
+        Set<EntityType> white = readTypeList("filters.whitelist", cfg.getStringList("filters.whitelist"), problems);
+        Set<EntityType> black = readTypeList("filters.blacklist", cfg.getStringList("filters.blacklist"), problems);
 
         boolean disableSafety = cfg.getBoolean("disable-safety-caps", false);
         boolean disableCaps = cfg.getBoolean("disable-spawn-caps", false);
-        return new Settings(defs, worldMap, entityMap, white, black, disableSafety, disableCaps);
+
+        ApplyAllBudget budget = readBudget(cfg.getConfigurationSection("applyall"));
+        long chunkBudget = (long) (Math.max(0.05, cfg.getDouble("chunk-load.budget-ms", 1.0)) * 1_000_000);
+        StatsOptions stats = new StatsOptions(
+                cfg.getBoolean("stats.enabled", false),
+                cfg.getBoolean("stats.jmx", true),
+                cfg.getInt("stats.dump-interval-seconds", 0));
+        ClusterCap cluster = readCluster(cfg.getConfigurationSection("cluster"));
+        LoadShedding shedding = readShedding(cfg.getConfigurationSection("load-shedding"));
+        Stacking stacking = new Stacking(
+                cfg.getBoolean("stacking.enabled", false),
+                Math.max(0.5, Math.min(16.0, cfg.getDouble("stacking.radius", 5.0))),
+                Math.max(2, cfg.getInt("stacking.max-stack", 20)),
+                cfg.getBoolean("stacking.show-count", true));
+
+        boolean watch = cfg.getBoolean("watch-config", true);
+        int snapshotSeconds = Math.max(0, cfg.getInt("count-snapshot-seconds", 300));
+        int despawnsPerTick = Math.max(1, cfg.getInt("despawn-max-per-tick", 200));
+        double reconcileMs = cfg.getDouble("reconcile.budget-ms", 0.25);
+        Reconcile reconcile = new Reconcile(reconcileMs <= 0 ? 0 : (long) (Math.max(0.01, reconcileMs) * 1_000_000),
+                Math.max(0, Math.min(4, cfg.getInt("reconcile.chunk-radius", 1))),
+                Math.max(0, cfg.getInt("reconcile.pause-seconds", 30)) * 20);
+        SpawnerRules rules = readRules(cfg, problems);
+
+        Settings raw = new Settings(defs, worldMap, entityMap, white, black, disableSafety, disableCaps,
+                budget, chunkBudget, stats, cluster, shedding, stacking, watch, snapshotSeconds, despawnsPerTick, reconcile, rules,
+                null, Map.of(), null);
+        return raw.compile();
     }
 
-    // choose first non-negative: per-entity -> per-world -> defaults
-    int getSpawnCap(String world, EntityType type) {
-        SpawnerValues e = perEntity.get(type);
-        if (e != null && e.spawnCap >= 0) return e.spawnCap;
+    // Precompute one row per configured world (plus the shared row for every other world) so the
+    // per-spawner path is array indexes only, once its world slot has been seen. Each row has a slot per EntityType ordinal
+    // and a trailing slot for spawners that have no type set. Rows are repeated per shedding level,
+    // and the whole set again per rule: layer 0 is the outcome without a rule, layer i + 1 under rule i.
+    // A rule's row shares layer 0's entries for the types the rule cannot apply to.
+    private Settings compile() {
+        Effective[][][] base = compileLayers(null);
+        Map<String, Effective[][][]> rows = new HashMap<>();
+        for (String world : perWorld.keySet()) {
+            rows.put(world, compileLayers(world));
+        }
+        return new Settings(defaults, perWorld, perEntity, whitelist, blacklist, disableSafetyCaps, disableSpawnCaps,
+                applyAll, chunkLoadBudgetNanos, stats, cluster, shedding, stacking, watchConfig, countSnapshotSeconds,
+                despawnsPerTick, reconcile, rules, base, Map.copyOf(rows), new SlotTables());
+    }
+
+    // A rule limited to other worlds never matches in a configured world; its layer there is left null.
+    private Effective[][][] compileLayers(String world) {
+        Effective[][][] layers = new Effective[rules.size() + 1][][];
+        layers[0] = compileRows(world, -1, null);
+        for (int i = 0; i < rules.size(); i++) {
+            SpawnerRules.Rule rule = rules.rule(i);
+            if (world != null && !rule.worlds().isEmpty() && !rule.worlds().contains(world)) continue;
+            layers[i + 1] = compileRows(world, i, layers[0]);
+        }
+        return layers;
+    }
+
+    // Rows for rule (-1 for none) at every shedding level; base holds layer 0's rows when rule >= 0.
+    private Effective[][] compileRows(String world, int rule, Effective[][] base) {
+        int levels = shedding.enabled() ? shedding.levels().size() : 0;
+        Effective[][] rows = new Effective[levels + 1][];
+        for (int i = 0; i <= levels; i++) {
+            rows[i] = compileRow(world, rule, i == 0 ? null : shedding.levels().get(i - 1), base == null ? null : base[i]);
+        }
+        return rows;
+    }
+
+    private Effective[] compileRow(String world, int rule, ShedLevel level, Effective[] base) {
+        SpawnerRules.Rule r = rule < 0 ? null : rules.rule(rule);
+        Effective[] row = new Effective[TYPES.length + 1];
+        for (EntityType t : TYPES) {
+            if (r != null && !rules.touches(rule, t)) {
+                row[t.ordinal()] = base[t.ordinal()];
+                continue;
+            }
+            SpawnerValues v = clamp(shed(resolve(world, t, r), level));
+            row[t.ordinal()] = new Effective(v, isEntityAllowed(t), fingerprint(v, t));
+        }
+        if (r != null && !rules.touches(rule, null)) {
+            row[TYPES.length] = base[TYPES.length];
+        } else {
+            SpawnerValues untyped = clamp(shed(resolve(world, null, r), level));
+            row[TYPES.length] = new Effective(untyped, false, fingerprint(untyped, null));
+        }
+        return row;
+    }
+
+    private static SpawnerValues shed(SpawnerValues v, ShedLevel level) {
+        return level == null ? v : level.scale(v);
+    }
+
+    // Stored on spawners, so it must be stable across restarts: type by name, not ordinal.
+    // spawnCap and the spawn rate are left out since they are enforced at spawn time and never written to the block.
+    private static int fingerprint(SpawnerValues v, EntityType type) {
+        int h = type == null ? 0 : type.name().hashCode();
+        h = 31 * h + v.minSpawnDelay();
+        h = 31 * h + v.maxSpawnDelay();
+        h = 31 * h + v.spawnCount();
+        h = 31 * h + v.maxNearbyEntities();
+        h = 31 * h + v.requiredPlayerRange();
+        h = 31 * h + v.spawnRange();
+        return (int) LongIntMap.mix(h);
+    }
+
+    // Lookup into the compiled table; no allocation.
+    Effective effective(String world, EntityType type) {
+        return effective(world, type, 0);
+    }
+
+    // Values under the given shedding level; levels past the configured ones use the highest.
+    Effective effective(String world, EntityType type, int shedLevel) {
+        return effective(world, type, shedLevel, -1);
+    }
+
+    // Values under a matched rule (from rules().match), or without one for -1.
+    Effective effective(String world, EntityType type, int shedLevel, int rule) {
+        return lookup(worldTables.getOrDefault(world, baseTable), type, shedLevel, rule);
+    }
+
+    // The spawn and chunk paths: worldSlot is the world's LiveCounts slot, and the name is only read the
+    // first time this snapshot sees the slot.
+    Effective effective(int worldSlot, String world, EntityType type, int shedLevel, int rule) {
+        Effective[][][] table = slotTables.get(worldSlot);
+        if (table == null) slotTables.put(worldSlot, table = worldTables.getOrDefault(world, baseTable));
+        return lookup(table, type, shedLevel, rule);
+    }
+
+    private static Effective lookup(Effective[][][] table, EntityType type, int shedLevel, int rule) {
+        Effective[][] rows = table[rule + 1];
+        Effective[] row = rows[Math.min(shedLevel, rows.length - 1)];
+        return row[type == null ? TYPES.length : type.ordinal()];
+    }
+
+    // Per EntityType ordinal: whether a spawner of that type in this world would be tweaked differently under
+    // next than under this snapshot, at the given shedding level. Null when nothing changed. When the rules
+    // themselves changed, every type either rule set can apply to counts as changed.
+    boolean[] changedTypes(Settings next, String world, int shedLevel) {
+        boolean sameRules = rules.rules().equals(next.rules.rules());
+        boolean[] changed = null;
+        for (EntityType t : TYPES) {
+            if (!changedType(next, world, t, shedLevel, sameRules)) continue;
+            if (changed == null) changed = new boolean[TYPES.length];
+            changed[t.ordinal()] = true;
+        }
+        return changed;
+    }
+
+    private boolean changedType(Settings next, String world, EntityType t, int shedLevel, boolean sameRules) {
+        if (differs(effective(world, t, shedLevel), next.effective(world, t, shedLevel))) return true;
+        if (!sameRules) return rules.touches(t) || next.rules.touches(t);
+        for (int i = 0; i < rules.size(); i++) {
+            Effective[][] a = worldTables.getOrDefault(world, baseTable)[i + 1];
+            if (a == null || !rules.touches(i, t)) continue;
+            if (differs(effective(world, t, shedLevel, i), next.effective(world, t, shedLevel, i))) return true;
+        }
+        return false;
+    }
+
+    private static boolean differs(Effective a, Effective b) {
+        return a.fingerprint() != b.fingerprint() || a.allowed() != b.allowed();
+    }
 
-        SpawnerValues w = perWorld.get(world);
-        if (w != null && w.spawnCap >= 0) return w.spawnCap;
+    // Whether any layer sets a mob lifetime.
+    boolean usesDespawn() {
+        if (defaults.despawnSeconds() >= 0) return true;
+        for (SpawnerValues v : perWorld.values()) if (v.despawnSeconds() >= 0) return true;
+        for (SpawnerValues v : perEntity.values()) if (v.despawnSeconds() >= 0) return true;
+        for (SpawnerRules.Rule rule : rules.rules()) if (rule.set().despawnSeconds() >= 0) return true;
+        return false;
+    }
 
-        return defaults.spawnCap; // may be -1 to disable globally
+    // choose first non-negative: per-entity -> per-world -> defaults
+    int getSpawnCap(String world, EntityType type) {
+        return effective(world, type).values().spawnCap(); // may be -1 to disable globally
     }
 
     boolean isEntityAllowed(EntityType t) {
@@ -74,23 +351,49 @@ record Settings(
     }
 
     SpawnerValues resolve(String worldName, EntityType type) {
-        // Merge priority: defaults -> perWorld -> perEntity
+        return resolve(worldName, type, null);
+    }
+
+    SpawnerValues resolve(String worldName, EntityType type, SpawnerRules.Rule rule) {
+        // Merge priority: defaults -> perWorld -> perEntity -> matched rule
         SpawnerValues base = defaults;
         SpawnerValues w = perWorld.get(worldName);
         SpawnerValues e = perEntity.get(type);
+        SpawnerValues r = rule == null ? null : rule.set();
+
+        int min = pick(r, e, w, base, Field.MIN_DELAY);
+        int max = pick(r, e, w, base, Field.MAX_DELAY);
+        int cnt = pick(r, e, w, base, Field.COUNT);
+        int cap = pick(r, e, w, base, Field.CAP);
+        int near = pick(r, e, w, base, Field.NEARBY);
+        int pr = pick(r, e, w, base, Field.PLAYER_RANGE);
+        int sr = pick(r, e, w, base, Field.SPAWN_RANGE);
+        int rate = pick(r, e, w, base, Field.RATE);
+        int burst = pick(r, e, w, base, Field.BURST);
+        int despawn = pick(r, e, w, base, Field.DESPAWN);
 
-        int min = pick(e, w, base, Field.MIN_DELAY);
-        int max = pick(e, w, base, Field.MAX_DELAY);
-        int cnt = pick(e, w, base, Field.COUNT);
-        int cap = pick(e, w, base, Field.CAP);
-        int near = pick(e, w, base, Field.NEARBY);
-        int pr = pick(e, w, base, Field.PLAYER_RANGE);
-        int sr = pick(e, w, base, Field.SPAWN_RANGE);
+        return new SpawnerValues(min, max, cnt, cap, near, pr, sr, rate, burst, despawn);
+    }
 
-        return new SpawnerValues(min, max, cnt, cap, near, pr, sr);
+    // Safety caps are applied once here instead of per spawner; -1 stays -1 (leave unchanged).
+    private SpawnerValues clamp(SpawnerValues v) {
+        if (disableSafetyCaps) return v;
+        return new SpawnerValues(
+                v.minSpawnDelay() >= 0 ? Math.max(v.minSpawnDelay(), HARD_MIN_SPAWN_DELAY) : -1,
+                v.maxSpawnDelay() >= 0 ? Math.max(v.maxSpawnDelay(), HARD_MAX_SPAWN_DELAY) : -1,
+                v.spawnCount() >= 0 ? Math.min(v.spawnCount(), HARD_MAX_SPAWN_COUNT) : -1,
+                v.spawnCap(),
+                v.maxNearbyEntities() >= 0 ? Math.min(v.maxNearbyEntities(), HARD_MAX_NEARBY) : -1,
+                v.requiredPlayerRange() >= 0 ? Math.min(v.requiredPlayerRange(), HARD_MAX_PLAYER_RANGE) : -1,
+                v.spawnRange() >= 0 ? Math.min(v.spawnRange(), HARD_MAX_SPAWN_RANGE) : -1,
+                v.spawnsPerMinute(),
+                v.spawnBurst(),
+                v.despawnSeconds());
     }
 
-    private static int pick(SpawnerValues e, SpawnerValues w, SpawnerValues b, Field f) {
+    private static int pick(SpawnerValues r, SpawnerValues e, SpawnerValues w, SpawnerValues b, Field f) {
+        int rv = value(r, f);
+        if (rv >= 0) return rv;
         int ev = value(e, f);
         if (ev >= 0) return ev;
         int wv = value(w, f);
@@ -98,7 +401,7 @@ record Settings(
         return value(b, f);
     }
 
-    private enum Field {MIN_DELAY, MAX_DELAY, COUNT, CAP, NEARBY, PLAYER_RANGE, SPAWN_RANGE}
+    private enum Field {MIN_DELAY, MAX_DELAY, COUNT, CAP, NEARBY, PLAYER_RANGE, SPAWN_RANGE, RATE, BURST, DESPAWN}
 
     private static int value(SpawnerValues v, Field f) {
         if (v == null) return -1;
@@ -110,12 +413,15 @@ record Settings(
             case NEARBY -> v.maxNearbyEntities();
             case PLAYER_RANGE -> v.requiredPlayerRange();
             case SPAWN_RANGE -> v.spawnRange();
+            case RATE -> v.spawnsPerMinute();
+            case BURST -> v.spawnBurst();
+            case DESPAWN -> v.despawnSeconds();
             default -> -1;
         };
     }
 
     private static SpawnerValues readValues(ConfigurationSection s) {
-        if (s == null) return new SpawnerValues(-1, -1, -1, -1, -1, -1, -1);
+        if (s == null) return new SpawnerValues(-1, -1, -1, -1, -1, -1, -1, -1, -1, -1);
         int min = s.getInt("minSpawnDelay", -1);
         int max = s.getInt("maxSpawnDelay", -1);
         int cnt = s.getInt("spawnCount", -1);
@@ -123,18 +429,246 @@ record Settings(
         int near = s.getInt("maxNearbyEntities", -1);
         int pr = s.getInt("requiredPlayerRange", -1);
         int sr = s.getInt("spawnRange", -1);
-        return new SpawnerValues(min, max, cnt, cap, near, pr, sr);
+        int rate = s.getInt("spawnsPerMinute", -1);
+        int burst = s.getInt("spawnBurst", -1);
+        int despawn = s.getInt("despawnAfterSeconds", -1);
+        return new SpawnerValues(min, max, cnt, cap, near, pr, sr, rate, burst, despawn);
+    }
+
+    private static SpawnerValues readValues(Map<?, ?> m) {
+        return new SpawnerValues(
+                (int) number(m.get("minSpawnDelay"), -1),
+                (int) number(m.get("maxSpawnDelay"), -1),
+                (int) number(m.get("spawnCount"), -1),
+                (int) number(m.get("spawnCap"), -1),
+                (int) number(m.get("maxNearbyEntities"), -1),
+                (int) number(m.get("requiredPlayerRange"), -1),
+                (int) number(m.get("spawnRange"), -1),
+                (int) number(m.get("spawnsPerMinute"), -1),
+                (int) number(m.get("spawnBurst"), -1),
+                (int) number(m.get("despawnAfterSeconds"), -1));
+    }
+
+    // A rule whose condition lists end up empty after dropping unknown names would match far more than
+    // written, so such rules are skipped as a whole.
+    private static SpawnerRules readRules(FileConfiguration cfg, List<String> problems) {
+        Map<String, SpawnerRules.Region> regions = readRegions(cfg.getConfigurationSection("regions"), problems);
+        List<Map<?, ?>> raw = cfg.getMapList("rules");
+        List<SpawnerRules.Rule> out = new ArrayList<>();
+        for (int i = 0; i < raw.size(); i++) {
+            Map<?, ?> m = raw.get(i);
+            String name = m.get("name") != null ? String.valueOf(m.get("name")) : "#" + (i + 1);
+            String path = "rules." + name;
+            if (out.size() == SpawnerRules.MAX_RULES) {
+                problems.add("rules: only the first " + SpawnerRules.MAX_RULES + " rules are used; "
+                        + (raw.size() - i) + " ignored");
+                break;
+            }
+
+            List<String> typeNames = strings(m.get("types"));
+            Set<EntityType> types = readTypeList(path + ".types", typeNames, problems);
+            List<String> biomeNames = strings(m.get("biomes"));
+            Set<Biome> biomes = new HashSet<>();
+            for (String b : biomeNames) {
+                NamespacedKey key = NamespacedKey.fromString(b.trim().toLowerCase(Locale.ROOT));
+                Biome biome = key == null ? null : Registry.BIOME.get(key);
+                if (biome != null) biomes.add(biome);
+                else problems.add(path + ".biomes: unknown biome '" + b + "', ignored");
+            }
+            List<SpawnerRules.Region> ruleRegions = new ArrayList<>();
+            boolean missingRegion = false;
+            for (String r : strings(m.get("regions"))) {
+                SpawnerRules.Region region = regions.get(r);
+                if (region != null) ruleRegions.add(region);
+                else {
+                    problems.add(path + ".regions: no region named '" + r + "' under regions:");
+                    missingRegion = true;
+                }
+            }
+            if ((!typeNames.isEmpty() && types.isEmpty()) || (!biomeNames.isEmpty() && biomes.isEmpty()) || missingRegion) {
+                problems.add(path + ": conditions could not be read, rule ignored");
+                continue;
+            }
+
+            int[] y = readYRange(m.get("y"));
+            if (y == null) {
+                problems.add(path + ".y: expected a number or a range like -64..0, rule ignored");
+                continue;
+            }
+            SpawnerRules.Source source;
+            try {
+                source = m.get("source") == null ? SpawnerRules.Source.ANY
+                        : SpawnerRules.Source.valueOf(String.valueOf(m.get("source")).trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                problems.add(path + ".source: expected placed, generated or any, rule ignored");
+                continue;
+            }
+            if (!(m.get("set") instanceof Map<?, ?> set)) {
+                problems.add(path + ": no set: values, rule ignored");
+                continue;
+            }
+            SpawnerValues values = readValues(set);
+            checkDelays(path + ".set", values, problems);
+
+            out.add(new SpawnerRules.Rule(name, Set.copyOf(strings(m.get("worlds"))), types, Set.copyOf(biomes),
+                    y[0], y[1], source, List.copyOf(ruleRegions), values));
+        }
+        return SpawnerRules.compile(out);
     }
 
-    private static Set<EntityType> readTypeList(List<String> raw) {
+    // "a..b", "a..", "..b" or a single number; inclusive. Null when unreadable.
+    private static int[] readYRange(Object o) {
+        if (o == null) return new int[] { Integer.MIN_VALUE, Integer.MAX_VALUE };
+        if (o instanceof Number n) return new int[] { n.intValue(), n.intValue() };
+        String s = String.valueOf(o).trim();
+        int dots = s.indexOf("..");
+        try {
+            if (dots < 0) {
+                int v = Integer.parseInt(s);
+                return new int[] { v, v };
+            }
+            String lo = s.substring(0, dots).trim(), hi = s.substring(dots + 2).trim();
+            int min = lo.isEmpty() ? Integer.MIN_VALUE : Integer.parseInt(lo);
+            int max = hi.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(hi);
+            return min <= max ? new int[] { min, max } : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, SpawnerRules.Region> readRegions(ConfigurationSection s, List<String> problems) {
+        Map<String, SpawnerRules.Region> out = new HashMap<>();
+        if (s == null) return out;
+        for (String name : s.getKeys(false)) {
+            ConfigurationSection r = s.getConfigurationSection(name);
+            String world = r == null ? null : r.getString("world");
+            List<Integer> from = r == null ? List.of() : r.getIntegerList("from");
+            List<Integer> to = r == null ? List.of() : r.getIntegerList("to");
+            if (world == null || from.size() != 2 || to.size() != 2) {
+                problems.add("regions." + name + ": needs world, from: [x, z] and to: [x, z], ignored");
+                continue;
+            }
+            out.put(name, new SpawnerRules.Region(name, world,
+                    Math.min(from.get(0), to.get(0)), Math.min(from.get(1), to.get(1)),
+                    Math.max(from.get(0), to.get(0)), Math.max(from.get(1), to.get(1))));
+        }
+        return out;
+    }
+
+    // A YAML list or a single scalar, as strings.
+    private static List<String> strings(Object o) {
+        if (o == null) return List.of();
+        if (o instanceof List<?> list) {
+            List<String> out = new ArrayList<>(list.size());
+            for (Object e : list) if (e != null) out.add(String.valueOf(e));
+            return out;
+        }
+        return List.of(String.valueOf(o));
+    }
+
+    private static ApplyAllBudget readBudget(ConfigurationSection s) {
+        double target = s == null ? 40.0 : s.getDouble("target-mspt", 40.0);
+        double min = s == null ? 0.25 : s.getDouble("min-budget-ms", 0.25);
+        double max = s == null ? 10.0 : s.getDouble("max-budget-ms", 10.0);
+        double init = s == null ? 2.0 : s.getDouble("budget-ms", 2.0);
+        min = Math.max(0.05, min);
+        max = Math.max(min, max);
+        init = Math.min(max, Math.max(min, init));
+        return new ApplyAllBudget(target, (long) (init * 1_000_000), (long) (min * 1_000_000), (long) (max * 1_000_000));
+    }
+
+    private static ClusterCap readCluster(ConfigurationSection s) {
+        int cap = s == null ? -1 : s.getInt("cap", -1);
+        int radius = s == null ? 32 : s.getInt("radius", 32);
+        radius = Math.min(1024, Math.max(16, radius));
+        int shift = 32 - Integer.numberOfLeadingZeros(radius - 1); // ceil(log2(radius))
+        return new ClusterCap(cap < 0 ? -1 : cap, shift);
+    }
+
+    private static LoadShedding readShedding(ConfigurationSection s) {
+        if (s == null) return new LoadShedding(false, 5.0, 100, 8, List.of());
+        List<ShedLevel> levels = new ArrayList<>();
+        for (Map<?, ?> m : s.getMapList("levels")) {
+            double mspt = number(m.get("mspt"), -1);
+            if (mspt <= 0) continue;
+            levels.add(new ShedLevel(mspt,
+                    Math.max(1.0, number(m.get("delay-multiplier"), 1.0)),
+                    Math.min(1.0, Math.max(0.0, number(m.get("count-multiplier"), 1.0))),
+                    Math.min(1.0, Math.max(0.0, number(m.get("nearby-multiplier"), 1.0)))));
+        }
+        levels.sort(Comparator.comparingDouble(ShedLevel::mspt));
+        return new LoadShedding(
+                s.getBoolean("enabled", false) && !levels.isEmpty(),
+                Math.max(0.0, s.getDouble("hysteresis-mspt", 5.0)),
+                Math.max(20, s.getInt("check-interval-ticks", 100)),
+                Math.max(1, Math.min(32, s.getInt("player-radius-chunks", 8))),
+                List.copyOf(levels));
+    }
+
+    private static double number(Object o, double def) {
+        return o instanceof Number n ? n.doubleValue() : def;
+    }
+
+    private static Set<EntityType> readTypeList(String path, List<String> raw, List<String> problems) {
         Set<EntityType> out = EnumSet.noneOf(EntityType.class);
         for (String s : raw) {
             EntityType t = parseType(s);
             if (t != null) out.add(t);
+            else problems.add(unknownType(path, s));
         }
         return out;
     }
 
+    private static void checkDelays(String path, SpawnerValues v, List<String> problems) {
+        if (v.minSpawnDelay() >= 0 && v.maxSpawnDelay() >= 0 && v.minSpawnDelay() > v.maxSpawnDelay()) {
+            problems.add(path + ": minSpawnDelay " + v.minSpawnDelay() + " is above maxSpawnDelay " + v.maxSpawnDelay());
+        }
+    }
+
+    private static String unknownType(String path, String name) {
+        String msg = path + ": unknown entity type '" + name + "', ignored";
+        String guess = closestType(name);
+        return guess == null ? msg : msg + " (did you mean " + guess + "?)";
+    }
+
+    // Nearest EntityType name within two edits, for typo hints.
+    private static String closestType(String name) {
+        if (name == null) return null;
+        String s = name.trim().toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+        String best = null;
+        int bestDist = 3;
+        for (EntityType t : TYPES) {
+            int d = editDistance(s, t.name(), bestDist);
+            if (d < bestDist) {
+                bestDist = d;
+                best = t.name();
+            }
+        }
+        return best;
+    }
+
+    // Levenshtein distance, giving up (returning limit) once every path is at least limit.
+    private static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) >= limit) return limit;
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin >= limit) return limit;
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return Math.min(prev[b.length()], limit);
+    }
+
     private static EntityType parseType(String s) {
         if (s == null) return null;
         try {
@@ -0,0 +1,25 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.CreatureSpawner;
+
+import static com.github.beemerwt.Settings.SpawnerValues;
+
+// The limit checks of a spawner spawn, in the order onSpawnerSpawn applies them. Kept free of plugin state
+// so the load simulator runs the same code.
+final class SpawnLimits {
+
+    private SpawnLimits() { }
+
+    // Null when the spawn may go ahead, otherwise the counter it is refused under. The rate limit is checked
+    // last, so spawns refused by a cap never take a token.
+    static Stats.Counter check(LiveCounts live, SpawnRates rates, int slot, long pos, CreatureSpawner spawner,
+                               SpawnerValues values, Settings.ClusterCap cluster) {
+        int cap = values.spawnCap();
+        if (cap >= 0 && live.get(slot, pos) >= cap) return Stats.Counter.SPAWNS_CAPPED;
+        if (cluster.enabled() && live.clusterCount(slot, pos) >= cluster.cap()) return Stats.Counter.SPAWNS_CLUSTER_CAPPED;
+        int rate = values.spawnsPerMinute();
+        if (rate < 0) return null;
+        int burst = values.spawnBurst() >= 0 ? values.spawnBurst() : spawner.getSpawnCount();
+        return rates.tryAcquire(slot, pos, rate, burst) ? null : Stats.Counter.SPAWNS_RATE_LIMITED;
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.beemerwt;
+
+import java.util.Arrays;
+
+// Per-spawner token buckets keyed like LiveCounts (world slot, spawner block key), stored as one int per
+// spawner: the bucket's theoretical arrival time (GCRA). A spawn is allowed while that time stays within
+// burst intervals of now, and each allowed spawn pushes it one interval further.
+// Times are wrapping milliseconds compared by subtraction; prune() drops every bucket that has refilled,
+// so no entry lives anywhere near the 24 days it takes for the comparison to wrap.
+final class SpawnRates {
+
+    private static final int STRIPES = 64; // power of two
+    private static final int MAX_BURST = 1000;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private static final class Stripe {
+        LongIntMap[] byWorld = new LongIntMap[2];
+
+        LongIntMap map(int worldSlot, boolean create) {
+            if (worldSlot >= byWorld.length) {
+                if (!create) return null;
+                byWorld = Arrays.copyOf(byWorld, Math.max(worldSlot + 1, byWorld.length * 2));
+            }
+            LongIntMap m = byWorld[worldSlot];
+            if (m == null && create) byWorld[worldSlot] = m = new LongIntMap();
+            return m;
+        }
+    }
+
+    SpawnRates() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    // Takes one token; false when the spawner is over its rate. perMinute < 0 never limits.
+    boolean tryAcquire(int worldSlot, long blockKey, int perMinute, int burst) {
+        if (perMinute < 0) return true;
+        if (perMinute == 0) return false;
+        int interval = Math.max(1, 60_000 / perMinute);
+        int tolerance = Math.max(1, Math.min(burst, MAX_BURST)) * interval;
+        int now = now();
+        Stripe s = stripes[(int) LongIntMap.mix(blockKey + worldSlot) & (STRIPES - 1)];
+        synchronized (s) {
+            LongIntMap m = s.map(worldSlot, true);
+            int tat = m.containsKey(blockKey) ? m.get(blockKey) : now;
+            if (tat - now < 0) tat = now;
+            int next = tat + interval;
+            if (next - now > tolerance) return false;
+            m.put(blockKey, next);
+            return true;
+        }
+    }
+
+    // Drops full buckets; those behave exactly like absent ones.
+    int prune() {
+        int now = now();
+        int removed = 0;
+        long[] full = new long[64];
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                for (LongIntMap m : s.byWorld) {
+                    if (m == null || m.isEmpty()) continue;
+                    int[] n = {0};
+                    long[][] buf = {full};
+                    m.forEach((key, tat) -> {
+                        if (tat - now > 0) return;
+                        if (n[0] == buf[0].length) buf[0] = Arrays.copyOf(buf[0], n[0] * 2);
+                        buf[0][n[0]++] = key;
+                    });
+                    full = buf[0];
+                    for (int i = 0; i < n[0]; i++) m.remove(full[i]);
+                    removed += n[0];
+                }
+            }
+        }
+        return removed;
+    }
+
+    void clear() {
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                for (LongIntMap m : s.byWorld) if (m != null) m.clear();
+            }
+        }
+    }
+
+    private static int now() {
+        return (int) (System.nanoTime() / 1_000_000);
+    }
+}
@@ -0,0 +1,294 @@
+package com.github.beemerwt;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.World;
+import org.bukkit.entity.EntityType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+// Chunk -> spawner positions, built as chunks are first scanned and kept current on place/break.
+// Chunks marked scanned with no entry are known to have no spawner and never need a tile-entity snapshot.
+// Spawners that appear without a place event are learned when they first spawn, or by /st applyall rescan.
+// Each world's index is guarded by its own monitor since region threads (Folia) update it concurrently.
+final class SpawnerIndex {
+
+    private static final EntityType[] TYPES = EntityType.values();
+
+    private final Path dir;
+    private final Logger log;
+    private final Map<UUID, WorldIndex> worlds = new ConcurrentHashMap<>();
+
+    SpawnerIndex(Path dir, Logger log) {
+        this.dir = dir;
+        this.log = log;
+    }
+
+    WorldIndex world(World w) {
+        WorldIndex wi = worlds.get(w.getUID());
+        return wi != null ? wi : worlds.computeIfAbsent(w.getUID(), this::load);
+    }
+
+    // Snapshot is taken on the calling thread; only the file write runs on the executor.
+    void save(World w, java.util.concurrent.Executor writer) {
+        WorldIndex wi = worlds.get(w.getUID());
+        if (wi == null || !wi.isDirty()) return;
+        ByteBuffer data = wi.encode();
+        Path file = fileOf(w.getUID());
+        writer.execute(() -> write(file, data));
+    }
+
+    void saveAll() {
+        for (Map.Entry<UUID, WorldIndex> e : worlds.entrySet()) {
+            if (e.getValue().isDirty()) write(fileOf(e.getKey()), e.getValue().encode());
+        }
+    }
+
+    void unload(World w) {
+        WorldIndex wi = worlds.remove(w.getUID());
+        if (wi != null && wi.isDirty()) write(fileOf(w.getUID()), wi.encode());
+    }
+
+    private Path fileOf(UUID world) {
+        return dir.resolve(world + ".idx");
+    }
+
+    private void write(Path file, ByteBuffer data) {
+        try {
+            SpawnerIndexFile.write(file, data);
+        } catch (IOException ex) {
+            log.warning("Failed to save spawner index " + file.getFileName() + ": " + ex.getMessage());
+        }
+    }
+
+    private WorldIndex load(UUID world) {
+        Path file = fileOf(world);
+        if (!Files.isRegularFile(file)) return new WorldIndex();
+        try {
+            SpawnerIndexFile.Contents c = SpawnerIndexFile.read(file);
+            int[] typeMap = new int[c.types().size()];
+            for (int i = 0; i < typeMap.length; i++) {
+                NamespacedKey key = NamespacedKey.fromString(c.types().get(i));
+                EntityType t = key == null ? null : Registry.ENTITY_TYPE.get(key);
+                typeMap[i] = t == null ? -1 : t.ordinal();
+            }
+            c.chunks().forEach((k, entries) -> {
+                for (int i = 0; i < entries.length; i++) {
+                    int ti = SpawnerIndexFile.typeIndex(entries[i]);
+                    int ordinal = ti >= 0 && ti < typeMap.length ? typeMap[ti] : -1;
+                    entries[i] = SpawnerIndexFile.entry(SpawnerIndexFile.localPos(entries[i]), ordinal);
+                }
+            });
+            return new WorldIndex(c.regions(), c.chunks());
+        } catch (IOException ex) {
+            log.warning("Discarding spawner index " + file.getFileName() + ": " + ex.getMessage());
+            return new WorldIndex();
+        }
+    }
+
+    static EntityType typeOf(long entry) {
+        int ordinal = SpawnerIndexFile.typeIndex(entry);
+        return ordinal >= 0 && ordinal < TYPES.length ? TYPES[ordinal] : null;
+    }
+
+    // In memory, entry type indices are EntityType ordinals; names are only used on disk.
+    static final class WorldIndex {
+        private final LongObjectMap<long[]> regions;
+        private final LongObjectMap<long[]> chunks;
+        private boolean dirty;
+
+        WorldIndex() {
+            this(new LongObjectMap<>(), new LongObjectMap<>());
+        }
+
+        private WorldIndex(LongObjectMap<long[]> regions, LongObjectMap<long[]> chunks) {
+            this.regions = regions;
+            this.chunks = chunks;
+        }
+
+        synchronized boolean isScanned(int cx, int cz) {
+            long[] bits = regions.get(SpawnerIndexFile.regionKey(cx, cz));
+            int bit = SpawnerIndexFile.regionBit(cx, cz);
+            return bits != null && (bits[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        // Entries of a chunk, or null when it has none. Arrays are replaced, never mutated, so callers may iterate freely.
+        synchronized long[] chunk(int cx, int cz) {
+            return chunks.get(SpawnerIndexFile.chunkKey(cx, cz));
+        }
+
+
+        synchronized boolean isDirty() {
+            return dirty;
+        }
+
+        synchronized int chunkCount() {
+            return chunks.size();
+        }
+
+        // Keys of every chunk with spawners, in no particular order.
+        synchronized long[] chunkKeys() {
+            long[] keys = new long[chunks.size()];
+            int[] n = {0};
+            chunks.forEach((key, entries) -> keys[n[0]++] = key);
+            return keys;
+        }
+
+        // Runs under the index lock; keep visitors short.
+        synchronized void forEachChunk(LongObjectMap.Visitor<long[]> v) {
+            chunks.forEach(v);
+        }
+
+        // Chunks with spawners inside the inclusive chunk box: walks the box or the whole map, whichever is
+        // smaller. Runs under the index lock; keep visitors short.
+        synchronized void forEachChunkIn(int minCx, int minCz, int maxCx, int maxCz, LongObjectMap.Visitor<long[]> v) {
+            long area = (long) (maxCx - minCx + 1) * (maxCz - minCz + 1);
+            if (area > chunks.size()) {
+                chunks.forEach((key, entries) -> {
+                    int cx = SpawnerIndexFile.chunkX(key), cz = SpawnerIndexFile.chunkZ(key);
+                    if (cx >= minCx && cx <= maxCx && cz >= minCz && cz <= maxCz) v.visit(key, entries);
+                });
+                return;
+            }
+            for (int cz = minCz; cz <= maxCz; cz++) {
+                for (int cx = minCx; cx <= maxCx; cx++) {
+                    long key = SpawnerIndexFile.chunkKey(cx, cz);
+                    long[] entries = chunks.get(key);
+                    if (entries != null) v.visit(key, entries);
+                }
+            }
+        }
+
+        // Result of a full tile-entity scan: marks the chunk scanned and replaces whatever was known.
+        synchronized void replaceChunk(int cx, int cz, long[] entries) {
+            long key = SpawnerIndexFile.chunkKey(cx, cz);
+            long[] old = chunks.put(key, entries == null || entries.length == 0 ? null : entries);
+            markScanned(cx, cz);
+            if (old != null || entries != null && entries.length > 0) dirty = true;
+        }
+
+        // The chunks get one full snapshot again the next time they are visited; entries stay until it replaces them.
+        synchronized void forgetScanned(long[] chunkKeys) {
+            for (long key : chunkKeys) {
+                int cx = SpawnerIndexFile.chunkX(key), cz = SpawnerIndexFile.chunkZ(key);
+                long[] bits = regions.get(SpawnerIndexFile.regionKey(cx, cz));
+                if (bits == null) continue;
+                int bit = SpawnerIndexFile.regionBit(cx, cz);
+                long mask = 1L << bit;
+                if ((bits[bit >>> 6] & mask) == 0) continue;
+                bits[bit >>> 6] &= ~mask;
+                dirty = true;
+            }
+        }
+
+        // A spawner found without a place event or a scan; true when its position was not indexed yet.
+        synchronized boolean learn(int x, int y, int z, EntityType type) {
+            long[] cur = chunks.get(SpawnerIndexFile.chunkKey(x >> 4, z >> 4));
+            int pos = SpawnerIndexFile.localPos(x, y, z);
+            if (cur != null) {
+                for (long entry : cur) {
+                    if (SpawnerIndexFile.localPos(entry) == pos) return false;
+                }
+            }
+            put(x, y, z, type);
+            return true;
+        }
+
+        synchronized void put(int x, int y, int z, EntityType type) {
+            int cx = x >> 4, cz = z >> 4;
+            long key = SpawnerIndexFile.chunkKey(cx, cz);
+            int pos = SpawnerIndexFile.localPos(x, y, z);
+            long entry = entry(x, y, z, type);
+            long[] cur = chunks.get(key);
+            if (cur == null) {
+                chunks.put(key, new long[] { entry });
+                dirty = true;
+                return;
+            }
+            for (int i = 0; i < cur.length; i++) {
+                if (SpawnerIndexFile.localPos(cur[i]) != pos) continue;
+                if (cur[i] == entry) return;
+                long[] next = cur.clone();
+                next[i] = entry;
+                chunks.put(key, next);
+                dirty = true;
+                return;
+            }
+            long[] next = Arrays.copyOf(cur, cur.length + 1);
+            next[cur.length] = entry;
+            chunks.put(key, next);
+            dirty = true;
+        }
+
+        synchronized void remove(int x, int y, int z) {
+            long key = SpawnerIndexFile.chunkKey(x >> 4, z >> 4);
+            int pos = SpawnerIndexFile.localPos(x, y, z);
+            long[] cur = chunks.get(key);
+            if (cur == null) return;
+            for (int i = 0; i < cur.length; i++) {
+                if (SpawnerIndexFile.localPos(cur[i]) != pos) continue;
+                if (cur.length == 1) {
+                    chunks.remove(key);
+                } else {
+                    long[] next = new long[cur.length - 1];
+                    System.arraycopy(cur, 0, next, 0, i);
+                    System.arraycopy(cur, i + 1, next, i, cur.length - i - 1);
+                    chunks.put(key, next);
+                }
+                dirty = true;
+                return;
+            }
+        }
+
+        private void markScanned(int cx, int cz) {
+            long rk = SpawnerIndexFile.regionKey(cx, cz);
+            long[] bits = regions.get(rk);
+            if (bits == null) {
+                bits = new long[SpawnerIndexFile.REGION_WORDS];
+                regions.put(rk, bits);
+            }
+            int bit = SpawnerIndexFile.regionBit(cx, cz);
+            long mask = 1L << bit;
+            if ((bits[bit >>> 6] & mask) == 0) {
+                bits[bit >>> 6] |= mask;
+                dirty = true;
+            }
+        }
+
+        private synchronized ByteBuffer encode() {
+            // Ordinals -> compact table of entity keys so the file survives EntityType reordering.
+            List<String> names = new ArrayList<>();
+            int[] slot = new int[TYPES.length];
+            Arrays.fill(slot, -1);
+            LongObjectMap<long[]> out = new LongObjectMap<>(chunks.size());
+            chunks.forEach((k, entries) -> {
+                long[] mapped = new long[entries.length];
+                for (int i = 0; i < entries.length; i++) {
+                    EntityType t = typeOf(entries[i]);
+                    int ti = -1;
+                    if (t != null && t != EntityType.UNKNOWN) {
+                        if (slot[t.ordinal()] < 0) {
+                            slot[t.ordinal()] = names.size();
+                            names.add(t.getKey().asString());
+                        }
+                        ti = slot[t.ordinal()];
+                    }
+                    mapped[i] = SpawnerIndexFile.entry(SpawnerIndexFile.localPos(entries[i]), ti);
+                }
+                out.put(k, mapped);
+            });
+            dirty = false;
+            return SpawnerIndexFile.encode(new SpawnerIndexFile.Contents(names, regions, out));
+        }
+    }
+
+    static long entry(int x, int y, int z, EntityType type) {
+        return SpawnerIndexFile.entry(SpawnerIndexFile.localPos(x, y, z), type == null ? -1 : type.ordinal());
+    }
+}
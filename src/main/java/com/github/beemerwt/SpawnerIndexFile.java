@@ -0,0 +1,160 @@
+package com.github.beemerwt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// On-disk layout of one world's spawner index (big-endian), read and written through a mapped buffer:
+//   int magic, int version
+//   int typeCount,   typeCount   x (short length, UTF-8 entity key)
+//   int regionCount, regionCount x (long regionKey, 16 longs: scanned-chunk bitmap of the 32x32 region)
+//   int chunkCount,  chunkCount  x (long chunkKey, int n, n x (int localPos, int typeIndex))
+// Kept free of Bukkit types so offline tools can produce the same file.
+final class SpawnerIndexFile {
+
+    static final int MAGIC   = 0x53544958; // "STIX"
+    static final int VERSION = 1;
+
+    static final int REGION_WORDS = 16;
+
+    // Chunk entries are ((long) typeIndex << 32) | localPos, typeIndex pointing into types or -1.
+    record Contents(List<String> types, LongObjectMap<long[]> regions, LongObjectMap<long[]> chunks) { }
+
+    private SpawnerIndexFile() { }
+
+    static long entry(int localPos, int typeIndex) {
+        return ((long) typeIndex << 32) | (localPos & 0xFFFFFFFFL);
+    }
+
+    static int localPos(long entry) {
+        return (int) entry;
+    }
+
+    static int typeIndex(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    // Block position within its chunk: (y << 8) | (z & 15) << 4 | (x & 15).
+    static int localPos(int x, int y, int z) {
+        return (y << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    static int localX(int localPos) { return localPos & 15; }
+    static int localY(int localPos) { return localPos >> 8; }
+    static int localZ(int localPos) { return (localPos >> 4) & 15; }
+
+    // Same packing as Paper's Chunk.getChunkKey(x, z).
+    static long chunkKey(int cx, int cz) {
+        return (cx & 0xFFFFFFFFL) | ((cz & 0xFFFFFFFFL) << 32);
+    }
+
+    static int chunkX(long chunkKey) { return (int) chunkKey; }
+    static int chunkZ(long chunkKey) { return (int) (chunkKey >>> 32); }
+
+    static long regionKey(int cx, int cz) {
+        return chunkKey(cx >> 5, cz >> 5);
+    }
+
+    static int regionBit(int cx, int cz) {
+        return ((cz & 31) << 5) | (cx & 31);
+    }
+
+    static Contents read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC) throw new IOException("not a spawner index: " + file);
+            int version = buf.getInt();
+            if (version != VERSION) throw new IOException("unsupported spawner index version " + version + ": " + file);
+
+            int typeCount = buf.getInt();
+            List<String> types = new ArrayList<>(typeCount);
+            for (int i = 0; i < typeCount; i++) {
+                byte[] raw = new byte[buf.getShort() & 0xFFFF];
+                buf.get(raw);
+                types.add(new String(raw, StandardCharsets.UTF_8));
+            }
+
+            int regionCount = buf.getInt();
+            LongObjectMap<long[]> regions = new LongObjectMap<>(regionCount);
+            for (int i = 0; i < regionCount; i++) {
+                long key = buf.getLong();
+                long[] bits = new long[REGION_WORDS];
+                buf.asLongBuffer().get(bits);
+                buf.position(buf.position() + REGION_WORDS * Long.BYTES);
+                regions.put(key, bits);
+            }
+
+            int chunkCount = buf.getInt();
+            LongObjectMap<long[]> chunks = new LongObjectMap<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                long key = buf.getLong();
+                long[] entries = new long[buf.getInt()];
+                for (int j = 0; j < entries.length; j++) {
+                    int pos = buf.getInt();
+                    entries[j] = entry(pos, buf.getInt());
+                }
+                if (entries.length > 0) chunks.put(key, entries);
+            }
+            return new Contents(types, regions, chunks);
+        } catch (RuntimeException e) {
+            throw new IOException("corrupt spawner index " + file + ": " + e, e);
+        }
+    }
+
+    static ByteBuffer encode(Contents c) {
+        byte[][] names = new byte[c.types().size()][];
+        long size = 4 + 4 + 4 + 4 + 4;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = c.types().get(i).getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length;
+        }
+        size += (long) c.regions().size() * (8 + REGION_WORDS * 8);
+        long[] entryTotal = new long[1];
+        c.chunks().forEach((k, v) -> entryTotal[0] += v.length);
+        size += (long) c.chunks().size() * (8 + 4) + entryTotal[0] * 8;
+
+        ByteBuffer buf = ByteBuffer.allocate(Math.toIntExact(size));
+        buf.putInt(MAGIC).putInt(VERSION);
+        buf.putInt(names.length);
+        for (byte[] n : names) {
+            buf.putShort((short) n.length).put(n);
+        }
+        buf.putInt(c.regions().size());
+        c.regions().forEach((k, bits) -> {
+            buf.putLong(k);
+            for (long w : bits) buf.putLong(w);
+        });
+        buf.putInt(c.chunks().size());
+        c.chunks().forEach((k, entries) -> {
+            buf.putLong(k).putInt(entries.length);
+            for (long e : entries) buf.putInt(localPos(e)).putInt(typeIndex(e));
+        });
+        return buf.flip();
+    }
+
+    // Written to a sibling temp file through a mapped buffer, then moved over the old index.
+    static synchronized void write(Path file, ByteBuffer data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, data.remaining());
+            out.put(data.duplicate());
+            out.force();
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.beemerwt;
+
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Range queries over the spawner index: what /st near lists, what /st info falls back to when no spawner
+// is targeted, and which chunks /st applyall radius sweeps. Only spawners the index knows about are found,
+// i.e. those in chunks loaded since the index was started (or seeded by the offline scanner).
+final class SpawnerQuery {
+
+    enum Order { DISTANCE, LIVE }
+
+    record Hit(int x, int y, int z, EntityType type, int live, double distance) { }
+
+    // Blocks within radius of a point, by straight-line distance.
+    record Sphere(int x, int y, int z, int radius) {
+        boolean contains(int bx, int by, int bz) {
+            long dx = bx - x, dy = by - y, dz = bz - z;
+            return dx * dx + dy * dy + dz * dz <= (long) radius * radius;
+        }
+
+        double distanceTo(int bx, int by, int bz) {
+            long dx = bx - x, dy = by - y, dz = bz - z;
+            return Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+    }
+
+    private static final Comparator<Hit> BY_DISTANCE = Comparator.comparingDouble(Hit::distance);
+    private static final Comparator<Hit> BY_LIVE = Comparator.comparingInt(Hit::live).reversed().thenComparing(BY_DISTANCE);
+
+    private SpawnerQuery() { }
+
+    static Sphere around(Location at, int radius) {
+        return new Sphere(at.getBlockX(), at.getBlockY(), at.getBlockZ(), radius);
+    }
+
+    // Every indexed spawner inside the sphere with its live count, nearest (or busiest) first.
+    static List<Hit> near(SpawnerIndex.WorldIndex wi, LiveCounts counts, int worldSlot, Sphere s, Order order) {
+        List<Hit> out = new ArrayList<>();
+        forEachIn(wi, s, (chunkKey, x, y, z, entry) -> out.add(new Hit(x, y, z, SpawnerIndex.typeOf(entry),
+                counts.get(worldSlot, Block.getBlockKey(x, y, z)), s.distanceTo(x, y, z))));
+        out.sort(order == Order.LIVE ? BY_LIVE : BY_DISTANCE);
+        return out;
+    }
+
+    // Keys of the chunks holding at least one indexed spawner inside the sphere.
+    static long[] chunksWithin(SpawnerIndex.WorldIndex wi, Sphere s) {
+        long[][] keys = { new long[16] };
+        int[] n = { 0 };
+        forEachIn(wi, s, (chunkKey, x, y, z, entry) -> {
+            if (n[0] > 0 && keys[0][n[0] - 1] == chunkKey) return; // entries arrive chunk by chunk
+            if (n[0] == keys[0].length) keys[0] = Arrays.copyOf(keys[0], n[0] * 2);
+            keys[0][n[0]++] = chunkKey;
+        });
+        return Arrays.copyOf(keys[0], n[0]);
+    }
+
+    private interface Visitor {
+        void visit(long chunkKey, int x, int y, int z, long entry);
+    }
+
+    private static void forEachIn(SpawnerIndex.WorldIndex wi, Sphere s, Visitor v) {
+        wi.forEachChunkIn((s.x() - s.radius()) >> 4, (s.z() - s.radius()) >> 4,
+                (s.x() + s.radius()) >> 4, (s.z() + s.radius()) >> 4, (key, entries) -> {
+                    int bx = SpawnerIndexFile.chunkX(key) << 4, bz = SpawnerIndexFile.chunkZ(key) << 4;
+                    for (long entry : entries) {
+                        int pos = SpawnerIndexFile.localPos(entry);
+                        int x = bx | SpawnerIndexFile.localX(pos), y = SpawnerIndexFile.localY(pos), z = bz | SpawnerIndexFile.localZ(pos);
+                        if (s.contains(x, y, z)) v.visit(key, x, y, z, entry);
+                    }
+                });
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+
+import java.util.*;
+
+// The rules: section compiled into one candidate bitmask per condition dimension (bit i = rule i). Each
+// dimension maps a spawner's value to the rules that either do not constrain it or accept that value, so
+// matching is a handful of lookups ANDed together, and the first matching rule is the lowest set bit.
+// Y bands and regions are cut into intervals at every rule boundary ahead of time; a region lookup is two
+// binary searches into its world's grid.
+final class SpawnerRules {
+
+    private static final EntityType[] TYPES = EntityType.values();
+
+    static final int MAX_RULES = 64;
+    static final SpawnerRules NONE = compile(List.of());
+
+    enum Source { ANY, PLACED, GENERATED }
+
+    // Inclusive block bounds on X and Z; Y is left to the rule's own band.
+    record Region(String name, String world, int minX, int minZ, int maxX, int maxZ) {
+        boolean contains(String w, int x, int z) {
+            return world.equals(w) && x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+        }
+    }
+
+    // Empty sets and an empty region list leave that dimension unconstrained; set holds the overriding values.
+    record Rule(String name, Set<String> worlds, Set<EntityType> types, Set<Biome> biomes, int minY, int maxY,
+                Source source, List<Region> regions, Settings.SpawnerValues set) { }
+
+    // Cut points on X and Z, and the rule mask of every cell between them (rows by Z).
+    private record Grid(int[] xs, int[] zs, long[] cells) {
+        long at(int x, int z) {
+            int ix = band(xs, x), iz = band(zs, z);
+            return cells[iz * (xs.length + 1) + ix];
+        }
+    }
+
+    private final List<Rule> rules;
+    private final long all;
+    private final long anyWorld;
+    private final Map<String, Long> byWorld;
+    private final long[] byType;
+    private final boolean usesBiome;
+    private final long anyBiome;
+    private final Map<Biome, Long> byBiome;
+    private final int[] yCuts;
+    private final long[] byYBand;
+    private final boolean usesSource;
+    private final long placedMask, generatedMask;
+    private final long anyRegion;
+    private final Map<String, Grid> regionGrids;
+
+    private SpawnerRules(List<Rule> rules) {
+        this.rules = rules;
+        int n = rules.size();
+        all = n == 64 ? -1L : (1L << n) - 1;
+
+        long anyW = 0;
+        Map<String, Long> w = new HashMap<>();
+        long[] t = new long[TYPES.length + 1];
+        long anyB = 0;
+        Map<Biome, Long> b = new HashMap<>();
+        long placed = 0, generated = 0;
+        long anyR = 0;
+        TreeSet<Integer> cuts = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            Rule r = rules.get(i);
+            long bit = 1L << i;
+            if (r.worlds().isEmpty()) anyW |= bit;
+            for (String world : r.worlds()) w.merge(world, bit, (x, y) -> x | y);
+            for (EntityType type : TYPES) {
+                if (r.types().isEmpty() || r.types().contains(type)) t[type.ordinal()] |= bit;
+            }
+            if (r.types().isEmpty()) t[TYPES.length] |= bit;
+            if (r.biomes().isEmpty()) anyB |= bit;
+            for (Biome biome : r.biomes()) b.merge(biome, bit, (x, y) -> x | y);
+            if (r.source() != Source.GENERATED) placed |= bit;
+            if (r.source() != Source.PLACED) generated |= bit;
+            if (r.regions().isEmpty()) anyR |= bit;
+            if (r.minY() != Integer.MIN_VALUE) cuts.add(r.minY());
+            if (r.maxY() != Integer.MAX_VALUE) cuts.add(r.maxY() + 1);
+        }
+        for (Map.Entry<String, Long> e : w.entrySet()) e.setValue(e.getValue() | anyW);
+        for (Map.Entry<Biome, Long> e : b.entrySet()) e.setValue(e.getValue() | anyB);
+        anyWorld = anyW;
+        byWorld = Map.copyOf(w);
+        byType = t;
+        anyBiome = anyB;
+        byBiome = Map.copyOf(b);
+        usesBiome = anyB != all;
+        placedMask = placed;
+        generatedMask = generated;
+        usesSource = placed != all || generated != all;
+        anyRegion = anyR;
+
+        yCuts = cuts.stream().mapToInt(Integer::intValue).toArray();
+        byYBand = new long[yCuts.length + 1];
+        for (int band = 0; band <= yCuts.length; band++) {
+            // Any Y inside the band stands for all of it.
+            int y = band == 0 ? Integer.MIN_VALUE : yCuts[band - 1];
+            long m = 0;
+            for (int i = 0; i < n; i++) {
+                if (y >= rules.get(i).minY() && y <= rules.get(i).maxY()) m |= 1L << i;
+            }
+            byYBand[band] = m;
+        }
+
+        regionGrids = compileGrids(rules);
+    }
+
+    static SpawnerRules compile(List<Rule> rules) {
+        if (rules.size() > MAX_RULES) throw new IllegalArgumentException("at most " + MAX_RULES + " rules");
+        return new SpawnerRules(List.copyOf(rules));
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    Rule rule(int index) {
+        return rules.get(index);
+    }
+
+    List<Rule> rules() {
+        return rules;
+    }
+
+    // Whether match() looks at the biome or placement at all; callers skip reading them otherwise.
+    boolean usesBiome() {
+        return usesBiome;
+    }
+
+    boolean usesSource() {
+        return usesSource;
+    }
+
+    // Whether any rule could apply to spawners of this type (null = no type set).
+    boolean touches(EntityType type) {
+        return byType[type == null ? TYPES.length : type.ordinal()] != 0;
+    }
+
+    // Whether rule i could apply to spawners of this type (null = no type set).
+    boolean touches(int rule, EntityType type) {
+        return (byType[type == null ? TYPES.length : type.ordinal()] >>> rule & 1L) != 0;
+    }
+
+    // Index of the first rule matching the spawner, or -1.
+    int match(String world, EntityType type, Biome biome, int x, int y, int z, boolean placed) {
+        long m = all;
+        if (m == 0) return -1;
+        m &= byWorld.getOrDefault(world, anyWorld);
+        m &= byType[type == null ? TYPES.length : type.ordinal()];
+        if (m == 0) return -1;
+        if (usesBiome) m &= biome == null ? anyBiome : byBiome.getOrDefault(biome, anyBiome);
+        m &= byYBand[band(yCuts, y)];
+        if (usesSource) m &= placed ? placedMask : generatedMask;
+        if (m == 0) return -1;
+        if (anyRegion != all) {
+            Grid g = regionGrids.get(world);
+            m &= g == null ? anyRegion : g.at(x, z);
+        }
+        return m == 0 ? -1 : Long.numberOfTrailingZeros(m);
+    }
+
+    // One line per condition, for /st info.
+    List<String> describe(int index) {
+        Rule r = rules.get(index);
+        List<String> out = new ArrayList<>();
+        out.add("Rule #" + (index + 1) + " '" + r.name() + "' matched (first of " + rules.size() + " in order):");
+        if (!r.worlds().isEmpty()) out.add("  worlds " + r.worlds());
+        if (!r.types().isEmpty()) out.add("  types " + r.types());
+        if (!r.biomes().isEmpty()) {
+            List<String> names = new ArrayList<>();
+            for (Biome b : r.biomes()) names.add(b.getKey().asString());
+            out.add("  biomes " + names);
+        }
+        if (r.minY() != Integer.MIN_VALUE || r.maxY() != Integer.MAX_VALUE) {
+            out.add("  y " + (r.minY() == Integer.MIN_VALUE ? "" : r.minY()) + ".." + (r.maxY() == Integer.MAX_VALUE ? "" : r.maxY()));
+        }
+        if (r.source() != Source.ANY) out.add("  source " + r.source().name().toLowerCase(Locale.ROOT));
+        for (Region g : r.regions()) {
+            out.add("  region " + g.name() + " (" + g.world() + " " + g.minX() + "," + g.minZ() + " to " + g.maxX() + "," + g.maxZ() + ")");
+        }
+        return out;
+    }
+
+    // Number of cut points at or below v, i.e. the index of the interval holding v.
+    private static int band(int[] cuts, int v) {
+        int i = Arrays.binarySearch(cuts, v);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    // Per world, every region edge cuts the X and Z axes; each cell of the resulting grid gets the rules
+    // whose regions cover it, plus the rules without regions.
+    private Map<String, Grid> compileGrids(List<Rule> rules) {
+        Map<String, List<Region>> byWorldRegions = new HashMap<>();
+        for (Rule r : rules) {
+            for (Region g : r.regions()) byWorldRegions.computeIfAbsent(g.world(), k -> new ArrayList<>()).add(g);
+        }
+        Map<String, Grid> grids = new HashMap<>();
+        for (Map.Entry<String, List<Region>> e : byWorldRegions.entrySet()) {
+            String world = e.getKey();
+            TreeSet<Integer> xs = new TreeSet<>(), zs = new TreeSet<>();
+            for (Region g : e.getValue()) {
+                xs.add(g.minX());
+                zs.add(g.minZ());
+                if (g.maxX() != Integer.MAX_VALUE) xs.add(g.maxX() + 1);
+                if (g.maxZ() != Integer.MAX_VALUE) zs.add(g.maxZ() + 1);
+            }
+            int[] xc = xs.stream().mapToInt(Integer::intValue).toArray();
+            int[] zc = zs.stream().mapToInt(Integer::intValue).toArray();
+            long[] cells = new long[(xc.length + 1) * (zc.length + 1)];
+            for (int iz = 0; iz <= zc.length; iz++) {
+                int z = iz == 0 ? Integer.MIN_VALUE : zc[iz - 1];
+                for (int ix = 0; ix <= xc.length; ix++) {
+                    int x = ix == 0 ? Integer.MIN_VALUE : xc[ix - 1];
+                    long m = anyRegion;
+                    for (int i = 0; i < rules.size(); i++) {
+                        for (Region g : rules.get(i).regions()) {
+                            if (g.contains(world, x, z)) {
+                                m |= 1L << i;
+                                break;
+                            }
+                        }
+                    }
+                    cells[iz * (xc.length + 1) + ix] = m;
+                }
+            }
+            grids.put(world, new Grid(xc, zc, cells));
+        }
+        return Map.copyOf(grids);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.beemerwt;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.CreatureSpawner;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import static com.github.beemerwt.Settings.SpawnerValues;
+
+// The per-spawner decision of tweakSpawner, kept free of plugin state so it can be benchmarked on its own
+// and run as is by the load simulator.
+final class SpawnerTweak {
+
+    private SpawnerTweak() { }
+
+    // True when the spawner was already tweaked under this fingerprint.
+    static boolean isCurrent(PersistentDataContainer pdc, NamespacedKey key, int fingerprint) {
+        Integer stamp = pdc.get(key, PersistentDataType.INTEGER);
+        return stamp != null && stamp == fingerprint;
+    }
+
+    // One spawner under its effective values: untouched while its stamp is current, otherwise the values are
+    // written, the stamp set and the state updated. Returns the counter for what was done, or null when the
+    // type is denied.
+    static Stats.Counter tweak(CreatureSpawner cs, NamespacedKey key, Settings.Effective eff) {
+        if (!eff.allowed()) return null;
+        PersistentDataContainer pdc = cs.getPersistentDataContainer();
+        if (isCurrent(pdc, key, eff.fingerprint())) return Stats.Counter.SPAWNERS_SKIPPED;
+        boolean changed = apply(cs, eff.values());
+        pdc.set(key, PersistentDataType.INTEGER, eff.fingerprint());
+        cs.update();
+        return changed ? Stats.Counter.SPAWNERS_REWRITTEN : Stats.Counter.SPAWNERS_RESTAMPED;
+    }
+
+    // Writes values onto the state (not the world); returns whether anything changed.
+    // Values are already merged and safety-capped; -1 means do not touch.
+    static boolean apply(CreatureSpawner cs, SpawnerValues values) {
+        boolean changed = false;
+
+        // Bukkit rejects a max below the current min and a min above the current max. Delays moving up
+        // need max first; moving down (e.g. a shed level released), a new max below the current min needs min first.
+        boolean minFirst = values.maxSpawnDelay() >= 0 && values.maxSpawnDelay() < cs.getMinSpawnDelay();
+        if (minFirst && values.minSpawnDelay() >= 0 && cs.getMinSpawnDelay() != values.minSpawnDelay()) {
+            cs.setMinSpawnDelay(values.minSpawnDelay());
+            changed = true;
+        }
+        if (values.maxSpawnDelay() >= 0 && cs.getMaxSpawnDelay() != values.maxSpawnDelay()) {
+            cs.setMaxSpawnDelay(values.maxSpawnDelay());
+            changed = true;
+        }
+        if (!minFirst && values.minSpawnDelay() >= 0 && cs.getMinSpawnDelay() != values.minSpawnDelay()) {
+            cs.setMinSpawnDelay(values.minSpawnDelay());
+            changed = true;
+        }
+
+        // Same with the spawn count and nearby entities
+        if (values.maxNearbyEntities() >= 0 && cs.getMaxNearbyEntities() != values.maxNearbyEntities()) {
+            cs.setMaxNearbyEntities(values.maxNearbyEntities());
+            changed = true;
+        }
+        if (values.spawnCount() >= 0 && cs.getSpawnCount() != values.spawnCount()) {
+            cs.setSpawnCount(values.spawnCount());
+            changed = true;
+        }
+
+        if (values.requiredPlayerRange() >= 0 && cs.getRequiredPlayerRange() != values.requiredPlayerRange()) {
+            cs.setRequiredPlayerRange(values.requiredPlayerRange());
+            changed = true;
+        }
+        if (values.spawnRange() >= 0 && cs.getSpawnRange() != values.spawnRange()) {
+            cs.setSpawnRange(values.spawnRange());
+            changed = true;
+        }
+        return changed;
+    }
+}
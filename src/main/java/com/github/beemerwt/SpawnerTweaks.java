@@ -1,60 +1,136 @@
 package com.github.beemerwt;
 
 import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import org.bukkit.*;
+import org.bukkit.block.Biome;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.CreatureSpawner;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Entity;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
 import org.bukkit.entity.EntityType;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.util.StringUtil;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import static com.github.beemerwt.Settings.SpawnerValues;
 
 public final class SpawnerTweaks extends JavaPlugin implements Listener, TabCompleter {
 
-    private static final int HARD_MIN_SPAWN_DELAY   = 10;   // ticks
-    private static final int HARD_MAX_SPAWN_DELAY   = 20;   // ticks
-    private static final int HARD_MAX_SPAWN_COUNT   = 32;
-    private static final int HARD_MAX_NEARBY        = 64;
-    private static final int HARD_MAX_PLAYER_RANGE  = 64;
-    private static final int HARD_MAX_SPAWN_RANGE   = 32;
-    private static final int CHUNKS_PER_TICK        = 150; // adjust if you want faster/slower sweeps
+    private static final List<String> SWEEP_CONTROLS = List.of("status", "pause", "resume", "cancel");
+    private static final List<String> STATS_ACTIONS = List.of("on", "off", "reset");
+    private static final List<String> NEAR_ORDERS = List.of("distance", "live");
+    private static final int NEAR_DEFAULT_RADIUS = 64;
+    private static final int NEAR_PAGE_SIZE = 10;
+    private static final int MAX_QUERY_RADIUS = 1024;
+    private static final int INFO_NEAREST_RADIUS = 16;
 
     private Logger log;
-    private Settings settings;
+    private volatile Settings settings; // immutable snapshot, read from region threads on Folia
+    private final boolean folia = ServerLoad.isFolia();
 
     private NamespacedKey ORIGIN_KEY;
-    private final Map<SpawnerKey, Integer> liveBySpawner = new HashMap<>();
+    private NamespacedKey TWEAK_KEY;
+    private NamespacedKey PLACED_KEY;
+    private NamespacedKey EXPIRES_KEY;
+    private OriginTag origin;
+    private EntityStacks stacks;
+    private final LiveCounts liveBySpawner = new LiveCounts();
+    private final TrackedEntities tracked = new TrackedEntities(liveBySpawner);
+    private final ParkedCounts parked = new ParkedCounts(liveBySpawner);
+    private final SpawnRates spawnRates = new SpawnRates();
+    private final EntityTypeSet trackedTypes = new EntityTypeSet(); // every type ever tracked
+    private final TimingWheel despawns = new TimingWheel(); // main thread only
+    private int despawnBudget;
+    private SpawnerIndex index;
+    private ApplyAllScheduler sweeps;
+    private final ChunkWorkQueue chunkQueue = new ChunkWorkQueue();
+    private final Stats stats = new Stats();
+    private final LoadShedder shedder = new LoadShedder(this, this::queueSpawnersNearPlayers);
+    private final CountReconciler reconciler = new CountReconciler(this, tracked, liveBySpawner, trackedTypes,
+            w -> index.world(w), this::trackIfTagged, stats);
+    private ScheduledTask statsDump;
+    private ScheduledTask countSnapshots;
+    private ConfigWatcher configWatcher;
+    private final AtomicLong reloadSeq = new AtomicLong();
 
     @Override
     public void onEnable() {
         this.log = getLogger();
+        sweeps = new ApplyAllScheduler(this, folia, this::applyToChunk, stats);
         saveDefaultConfig();
         reloadSettings();
 
         ORIGIN_KEY = new NamespacedKey(this, "origin_spawner");
-        rebuildLiveCountsFromLoadedWorlds(); // populate map from already-loaded entities
+        origin = new OriginTag(ORIGIN_KEY);
+        TWEAK_KEY = new NamespacedKey(this, "tweak_fingerprint");
+        PLACED_KEY = new NamespacedKey(this, "placed");
+        EXPIRES_KEY = new NamespacedKey(this, "expires_at");
+        stacks = new EntityStacks(new NamespacedKey(this, "stack_size"), new NamespacedKey(this, "stack_label"));
+        index = new SpawnerIndex(getDataFolder().toPath().resolve("index"), log);
+        loadCounts();
+        countLoadedEntities(); // only when enabled after worlds loaded (plugin reloaders)
+        indexLoadedChunks();
 
         Bukkit.getPluginManager().registerEvents(this, this);
+        if (!folia) {
+            // On Folia each chunk's work is scheduled on its own region instead (see onChunkLoad).
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(this,
+                    t -> chunkQueue.drain(settings.chunkLoadBudgetNanos(), this::processLoadedChunk), 1L, 1L);
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(this, t -> tickDespawns(), 1L, 1L);
+        }
+        // Refilled buckets are dropped so the map only holds spawners that are actually being limited.
+        Bukkit.getAsyncScheduler().runAtFixedRate(this, t -> spawnRates.prune(), 1, 1, TimeUnit.MINUTES);
         Objects.requireNonNull(getCommand("spawnertweaks")).setTabCompleter(this);
         log.info("SpawnerTweaks enabled.");
     }
 
     @Override
     public void onDisable() {
+        if (sweeps != null) sweeps.shutdown();
+        if (statsDump != null) statsDump.cancel();
+        if (countSnapshots != null) countSnapshots.cancel();
+        if (configWatcher != null) configWatcher.stop();
+        shedder.shutdown();
+        reconciler.shutdown();
+        stats.unregisterMBean();
+        chunkQueue.clear();
+        if (index != null) {
+            index.saveAll();
+            saveCounts();
+        }
         log.info("SpawnerTweaks disabled.");
     }
 
@@ -72,13 +148,53 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
         }
 
         if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
-            reloadConfig();
-            reloadSettings();
-            sender.sendMessage("SpawnerTweaks config reloaded.");
+            sender.sendMessage("SpawnerTweaks: reloading config...");
+            reloadAsync(sender);
             return true;
         }
 
         if (args[0].equalsIgnoreCase("applyall")) {
+            if (args.length >= 3 && args[1].equalsIgnoreCase("radius")) {
+                boolean rescan = args.length == 4 && args[3].equalsIgnoreCase("rescan");
+                if (args.length > 3 && !rescan) {
+                    sendHelp(sender);
+                    return true;
+                }
+                if (!(sender instanceof Player p)) {
+                    sender.sendMessage("Run this in-game; the radius is measured from where you stand.");
+                    return true;
+                }
+                int radius = parseRadius(sender, args[2]);
+                if (radius > 0) applyAllNear(p, radius, rescan);
+                return true;
+            }
+            if (args.length <= 3 && args.length >= 2 && args[1].equalsIgnoreCase("rescan")) {
+                if (args.length == 3) {
+                    World w = Bukkit.getWorld(args[2]);
+                    if (w == null) {
+                        sender.sendMessage("Unknown world: " + args[2]);
+                        return true;
+                    }
+                    sender.sendMessage("SpawnerTweaks: rescanning loaded chunks in world '" + w.getName() + "'...");
+                    applyAllLoadedAsync(sender, Collections.singletonList(w), true);
+                } else {
+                    sender.sendMessage("SpawnerTweaks: rescanning loaded chunks in all worlds...");
+                    applyAllLoadedAsync(sender, Bukkit.getWorlds(), true);
+                }
+                return true;
+            }
+            if (args.length >= 2 && SWEEP_CONTROLS.contains(args[1].toLowerCase(Locale.ROOT))) {
+                World w = null;
+                if (args.length == 3) {
+                    w = Bukkit.getWorld(args[2]);
+                    if (w == null) {
+                        sender.sendMessage("Unknown world: " + args[2]);
+                        return true;
+                    }
+                }
+                controlSweeps(sender, args[1].toLowerCase(Locale.ROOT), w);
+                return true;
+            }
             if (args.length == 2) {
                 World w = Bukkit.getWorld(args[1]);
                 if (w == null) {
@@ -86,14 +202,73 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
                     return true;
                 }
                 sender.sendMessage("SpawnerTweaks: re-applying to loaded chunks in world '" + w.getName() + "'...");
-                applyAllLoadedAsync(sender, Collections.singletonList(w));
+                applyAllLoadedAsync(sender, Collections.singletonList(w), false);
             } else {
                 sender.sendMessage("SpawnerTweaks: re-applying to all loaded chunks in all worlds...");
-                applyAllLoadedAsync(sender, Bukkit.getWorlds());
+                applyAllLoadedAsync(sender, Bukkit.getWorlds(), false);
             }
             return true;
         }
 
+        if (args[0].equalsIgnoreCase("stats") && args.length <= 2) {
+            String action = args.length == 2 ? args[1].toLowerCase(Locale.ROOT) : "show";
+            switch (action) {
+                case "on" -> {
+                    stats.setEnabled(true);
+                    sender.sendMessage("SpawnerTweaks: stats collection on (until the next reload).");
+                }
+                case "off" -> {
+                    stats.setEnabled(false);
+                    sender.sendMessage("SpawnerTweaks: stats collection off (until the next reload).");
+                }
+                case "reset" -> {
+                    stats.reset();
+                    sender.sendMessage("SpawnerTweaks: stats reset.");
+                }
+                case "show" -> {
+                    sender.sendMessage("--- SpawnerTweaks: stats ---");
+                    for (String line : stats.report()) sender.sendMessage(line);
+                    sender.sendMessage("  tracked entities=" + tracked.size() + " parked chunks=" + parked.chunks()
+                            + " despawn queue=" + despawns.size()
+                            + " queued chunks=" + chunkQueue.size());
+                    sender.sendMessage("  " + reconciler.summary());
+                }
+                default -> sendHelp(sender);
+            }
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("near") && args.length <= 4) {
+            if (!(sender instanceof Player p)) {
+                sender.sendMessage("Run this in-game; spawners are listed around where you stand.");
+                return true;
+            }
+            int radius = args.length >= 2 ? parseRadius(sender, args[1]) : NEAR_DEFAULT_RADIUS;
+            if (radius <= 0) return true;
+            SpawnerQuery.Order order = SpawnerQuery.Order.DISTANCE;
+            if (args.length >= 3) {
+                if (!NEAR_ORDERS.contains(args[2].toLowerCase(Locale.ROOT))) {
+                    sender.sendMessage("Sort by distance or live, not '" + args[2] + "'.");
+                    return true;
+                }
+                order = SpawnerQuery.Order.valueOf(args[2].toUpperCase(Locale.ROOT));
+            }
+            int page = 1;
+            if (args.length == 4) {
+                try {
+                    page = Integer.parseInt(args[3]);
+                } catch (NumberFormatException ex) {
+                    page = 0;
+                }
+                if (page < 1) {
+                    sender.sendMessage("Not a page number: " + args[3]);
+                    return true;
+                }
+            }
+            listNear(p, radius, order, page);
+            return true;
+        }
+
         if (args.length == 1 && args[0].equalsIgnoreCase("info")) {
             if (!(sender instanceof Player p)) {
                 sender.sendMessage("Run this in-game while looking at a spawner.");
@@ -101,25 +276,42 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
             }
 
             CreatureSpawner cs = getTargetedSpawner(p, 8);
+            boolean nearest = cs == null;
+            if (nearest) cs = nearestSpawner(p, INFO_NEAREST_RADIUS);
             if (cs == null) {
-                p.sendMessage("Look at a spawner within 8 blocks and try again.");
+                p.sendMessage("Look at a spawner within 8 blocks, or stand within " + INFO_NEAREST_RADIUS
+                        + " blocks of one, and try again.");
                 return true;
             }
 
             // Effective config (merged)
-            SpawnerValues eff = settings.resolve(cs.getWorld().getName(), cs.getSpawnedType());
+            Settings s = settings;
+            int rule = matchRule(s, cs);
+            SpawnerValues eff = s.resolve(cs.getWorld().getName(), cs.getSpawnedType(), rule < 0 ? null : s.rules().rule(rule));
 
             p.sendMessage("--- SpawnerTweaks: info ---");
+            if (nearest) {
+                p.sendMessage("Not looking at a spawner; showing the nearest known one, "
+                        + Math.round(SpawnerQuery.around(p.getLocation(), 0).distanceTo(cs.getX(), cs.getY(), cs.getZ()))
+                        + " blocks away.");
+            }
             p.sendMessage("Location: " + cs.getLocation().getBlockX() + "," +
                     cs.getLocation().getBlockY() + "," +
                     cs.getLocation().getBlockZ() + " in " + cs.getWorld().getName());
             p.sendMessage("EntityType: " + String.valueOf(cs.getSpawnedType()));
             p.sendMessage("Safety caps active: " + (settings.disableSafetyCaps() ? "false (DISABLED)" : "true"));
-
-            SpawnerKey key = keyOf(cs);
-            int live = liveBySpawner.getOrDefault(key, 0);
-            sender.sendMessage("Live entities from this spawner: " + live +
-                    (!settings.disableSafetyCaps() ? " / " + settings.defaults().spawnCap() : ""));
+            if (settings.shedding().enabled()) p.sendMessage("Load shedding level: " + shedder.level());
+
+            // The cap the spawn handler enforces for this spawner, overrides and matched rule included.
+            int cap = s.effective(cs.getWorld().getName(), cs.getSpawnedType(), shedder.level(), rule).values().spawnCap();
+            int live = liveBySpawner.get(cs.getWorld().getUID(), blockKeyOf(cs));
+            sender.sendMessage("Live entities from this spawner: " + live + (cap >= 0 ? " / " + cap : ""));
+            Settings.ClusterCap cluster = settings.cluster();
+            if (cluster.enabled()) {
+                int span = 3 << cluster.cellShift();
+                p.sendMessage("Live entities from spawners in the surrounding " + span + "x" + span + " blocks: "
+                        + liveBySpawner.clusterCount(cs.getWorld().getUID(), blockKeyOf(cs)) + " / " + cluster.cap());
+            }
 
             p.sendMessage("Current (live from block):");
             p.sendMessage("  minSpawnDelay=" + cs.getMinSpawnDelay() +
@@ -129,6 +321,16 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
                     " requiredPlayerRange=" + cs.getRequiredPlayerRange() +
                     " spawnRange=" + cs.getSpawnRange());
 
+            if (rule >= 0) {
+                for (String line : s.rules().describe(rule)) p.sendMessage(line);
+            } else if (!s.rules().isEmpty()) {
+                p.sendMessage("No rule matched (" + s.rules().size() + " checked); defaults, perWorld and perEntity apply.");
+            }
+            if (!s.rules().isEmpty()) {
+                p.sendMessage("Source: " + (cs.getPersistentDataContainer().has(PLACED_KEY, PersistentDataType.BYTE) ? "placed" : "generated")
+                        + ", biome: " + cs.getWorld().getBiome(cs.getX(), cs.getY(), cs.getZ()).getKey().asString());
+            }
+
             p.sendMessage("Effective config (before safety caps; -1 means unchanged):");
             p.sendMessage("  minSpawnDelay=" + eff.minSpawnDelay() +
                     " maxSpawnDelay=" + eff.maxSpawnDelay() +
@@ -136,6 +338,8 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
             p.sendMessage("  maxNearbyEntities=" + eff.maxNearbyEntities() +
                     " requiredPlayerRange=" + eff.requiredPlayerRange() +
                     " spawnRange=" + eff.spawnRange());
+            p.sendMessage("  spawnsPerMinute=" + eff.spawnsPerMinute() +
+                    " spawnBurst=" + eff.spawnBurst());
 
             return true;
         }
@@ -144,237 +348,800 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
         return true;
     }
 
+    // Startup only; later reloads go through reloadAsync.
     private void reloadSettings() {
-        this.settings = Settings.fromConfig(getConfig());
+        List<String> problems = new ArrayList<>();
+        applySettings(Settings.fromConfig(getConfig(), problems));
+        for (String problem : problems) log.warning("config.yml " + problem);
     }
 
-    // ========== Event hooks ==========
+    // Parse off-thread into a fresh snapshot, then publish it from the global thread. A reload that was
+    // overtaken by a newer one is dropped, so snapshots are never published out of order.
+    private void reloadAsync(CommandSender feedback) {
+        long seq = reloadSeq.incrementAndGet();
+        java.io.File file = new java.io.File(getDataFolder(), "config.yml");
+        Bukkit.getAsyncScheduler().runNow(this, t -> {
+            YamlConfiguration cfg = new YamlConfiguration();
+            try {
+                cfg.load(file);
+            } catch (IOException | InvalidConfigurationException ex) {
+                Bukkit.getGlobalRegionScheduler().execute(this, () ->
+                        report(feedback, "config.yml was not reloaded, keeping the current settings: " + ex.getMessage()));
+                return;
+            }
+            try (InputStream in = getResource("config.yml")) {
+                if (in != null) cfg.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            } catch (IOException ignored) {
+                // defaults are a convenience; Settings has its own fallbacks
+            }
+            List<String> problems = new ArrayList<>();
+            Settings next = Settings.fromConfig(cfg, problems);
+            Bukkit.getGlobalRegionScheduler().execute(this, () -> {
+                if (seq != reloadSeq.get()) return;
+                publishSettings(next, problems, feedback);
+            });
+        });
+    }
 
-    @EventHandler
-    public void onChunkLoad(ChunkLoadEvent e) {
-        applyToChunk(e.getChunk());
+    private void publishSettings(Settings next, List<String> problems, CommandSender feedback) {
+        Settings prev = settings;
+        applySettings(next);
+        for (String problem : problems) report(feedback, "config.yml " + problem);
+        int chunks = reapplyChanged(prev, next, feedback);
+        String msg = "SpawnerTweaks config reloaded" + (problems.isEmpty() ? "" : " with " + problems.size() + " problem(s)")
+                + (chunks == 0 ? "; no spawner values changed." : "; re-applying to " + chunks + " chunks with changed spawners.");
+        log.info(msg);
+        if (feedback != null) feedback.sendMessage(msg);
+    }
 
-        // Also rebuild just for this chunk’s entities
-        for (Entity ent : e.getChunk().getEntities()) {
-            String s = ent.getPersistentDataContainer().get(ORIGIN_KEY, org.bukkit.persistence.PersistentDataType.STRING);
-            if (s == null) continue;
+    private void report(CommandSender feedback, String msg) {
+        log.warning(msg);
+        if (feedback != null && !(feedback instanceof org.bukkit.command.ConsoleCommandSender)) feedback.sendMessage(msg);
+    }
 
-            SpawnerKey key = decode(s);
-            if (key == null) continue;
+    // Sweeps only the indexed chunks holding a spawner type whose effective values differ between the snapshots.
+    private int reapplyChanged(Settings prev, Settings next, CommandSender feedback) {
+        int level = shedder.level();
+        int total = 0;
+        for (World w : Bukkit.getWorlds()) {
+            boolean[] changed = prev.changedTypes(next, w.getName(), level);
+            if (changed == null) continue;
+            SpawnerIndex.WorldIndex wi = index.world(w);
+            long[] keys = new long[wi.chunkCount()];
+            int[] n = {0};
+            wi.forEachChunk((key, entries) -> {
+                for (long entry : entries) {
+                    int ordinal = SpawnerIndexFile.typeIndex(entry);
+                    if (ordinal >= 0 && ordinal < changed.length && changed[ordinal]) {
+                        keys[n[0]++] = key;
+                        return;
+                    }
+                }
+            });
+            if (n[0] == 0) continue;
+            if (!sweeps.start(w, Arrays.copyOf(keys, n[0]), feedback)) {
+                report(feedback, "SpawnerTweaks: applyall is already running in '" + w.getName()
+                        + "'; run it again afterwards to pick up the changed values there.");
+                continue;
+            }
+            total += n[0];
+        }
+        return total;
+    }
 
-            liveBySpawner.merge(key, 1, Integer::sum);
+    private void applySettings(Settings next) {
+        this.settings = next;
+        sweeps.configure(settings.applyAll());
+        Settings.ClusterCap cluster = settings.cluster();
+        liveBySpawner.setCellShift(cluster.enabled() ? cluster.cellShift() : LiveCounts.NO_GRID);
+        configureStats(settings.stats());
+        // Mobs can only be looked up by UUID from the main thread.
+        if (folia && settings.usesDespawn()) log.warning("despawnAfterSeconds is not supported on Folia; ignoring it.");
+        configureCountSnapshots(settings.countSnapshotSeconds());
+        shedder.configure(settings.shedding(), folia);
+        reconciler.configure(settings.reconcile(), folia);
+        configureWatcher(settings.watchConfig());
+    }
+
+    private void configureWatcher(boolean watch) {
+        if (!watch) {
+            if (configWatcher != null) configWatcher.stop();
+            configWatcher = null;
+            return;
+        }
+        if (configWatcher != null) return;
+        configWatcher = new ConfigWatcher(getDataFolder().toPath().resolve("config.yml"), () -> reloadAsync(null), log);
+        try {
+            configWatcher.start();
+        } catch (IOException ex) {
+            log.warning("Cannot watch config.yml for changes: " + ex.getMessage());
+            configWatcher = null;
         }
     }
 
+    private void configureStats(Settings.StatsOptions opts) {
+        stats.setEnabled(opts.enabled());
+        if (opts.enabled() && opts.jmx()) {
+            try {
+                stats.registerMBean(getName());
+            } catch (IllegalStateException ex) {
+                log.warning(ex.getMessage());
+            }
+        } else {
+            stats.unregisterMBean();
+        }
+
+        if (statsDump != null) {
+            statsDump.cancel();
+            statsDump = null;
+        }
+        if (opts.enabled() && opts.dumpIntervalSeconds() > 0) {
+            java.nio.file.Path file = getDataFolder().toPath().resolve("stats.log");
+            long every = opts.dumpIntervalSeconds();
+            statsDump = Bukkit.getAsyncScheduler().runAtFixedRate(this, t -> {
+                try {
+                    stats.dump(file);
+                } catch (IOException ex) {
+                    log.warning("Failed to write " + file.getFileName() + ": " + ex.getMessage());
+                }
+            }, every, every, TimeUnit.SECONDS);
+        }
+    }
+
+    private void configureCountSnapshots(int seconds) {
+        if (countSnapshots != null) {
+            countSnapshots.cancel();
+            countSnapshots = null;
+        }
+        if (seconds > 0) {
+            countSnapshots = Bukkit.getAsyncScheduler().runAtFixedRate(this, t -> saveCounts(),
+                    seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // ========== Event hooks ==========
+
+    @EventHandler
+    public void onChunkLoad(ChunkLoadEvent e) {
+        // Deferred: load storms (teleports, elytra, pre-generation) are drained over later ticks.
+        long t0 = stats.start();
+        Chunk c = e.getChunk();
+        queueChunkWork(e.getWorld(), c.getX(), c.getZ());
+        stats.stop(Stats.Timer.CHUNK_LOAD, t0);
+    }
+
     @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        Chunk c = e.getChunk();
+        chunkQueue.remove(e.getWorld(), c.getX(), c.getZ());
+    }
+
+    // MONITOR and not cancelled: a place reverted by a protection plugin must not leave an index entry behind.
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onSpawnerPlace(BlockPlaceEvent e) {
         Block b = e.getBlockPlaced();
         if (b.getType() != Material.SPAWNER) return;
-        tweakSpawner(b.getState(), "place");
+        BlockState state = b.getState();
+        if (state instanceof CreatureSpawner cs) {
+            index.world(b.getWorld()).put(b.getX(), b.getY(), b.getZ(), cs.getSpawnedType());
+            // Anything without the flag counts as generated, including spawners placed before it existed.
+            cs.getPersistentDataContainer().set(PLACED_KEY, PersistentDataType.BYTE, (byte) 1);
+            cs.update();
+        }
+        tweakSpawner(state, liveBySpawner.slot(b.getWorld().getUID()), "place");
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSpawnerBreak(BlockBreakEvent e) {
+        Block b = e.getBlock();
+        if (b.getType() != Material.SPAWNER) return;
+        index.world(b.getWorld()).remove(b.getX(), b.getY(), b.getZ());
+    }
+
+    @EventHandler
+    public void onWorldSave(WorldSaveEvent e) {
+        index.save(e.getWorld(), r -> Bukkit.getAsyncScheduler().runNow(this, t -> r.run()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent e) {
+        chunkQueue.removeWorld(e.getWorld());
+        index.unload(e.getWorld());
     }
 
     @EventHandler(ignoreCancelled = true)
     public void onSpawnerSpawn(org.bukkit.event.entity.SpawnerSpawnEvent e) {
         if (e.getSpawner() == null) return;
+        long t0 = stats.start();
+        try {
+            handleSpawnerSpawn(e);
+        } finally {
+            stats.stop(Stats.Timer.SPAWNER_SPAWN, t0);
+        }
+    }
 
-        // Resolve cap; -1 means "no cap"
-        final int cap = settings.getSpawnCap(
-                e.getSpawner().getWorld().getName(),
-                e.getSpawner().getSpawnedType());
+    private void handleSpawnerSpawn(org.bukkit.event.entity.SpawnerSpawnEvent e) {
+        // A spawner is always tweaked before its first spawn is honored: flush its chunk if still queued.
+        World sw = e.getSpawner().getWorld();
+        UUID world = sw.getUID();
+        int slot = liveBySpawner.slot(world);
+        int scx = e.getSpawner().getX() >> 4, scz = e.getSpawner().getZ() >> 4;
+        if (chunkQueue.remove(sw, scx, scz)) processLoadedChunk(sw, scx, scz);
+        // Scanned chunks are not snapshotted again, so a spawner that appeared without a place event
+        // (WorldEdit, /setblock, another plugin, edits while we were disabled) is first seen here.
+        CreatureSpawner source = e.getSpawner();
+        if (index.world(sw).learn(source.getX(), source.getY(), source.getZ(), source.getSpawnedType())) {
+            tweakSpawner(source, slot, "spawn");
+        }
 
-        if (cap >= 0) {
-            SpawnerKey key = keyOf(e.getSpawner());
-            int live = liveBySpawner.getOrDefault(key, 0);
-            if (live >= cap) {
+        // Resolve cap and rate; -1 means "no limit"
+        final Settings s = settings;
+        final SpawnerValues values = s.effective(slot, sw.getName(),
+                source.getSpawnedType(), 0, matchRule(s, source)).values();
+        final int cap = values.spawnCap();
+        final int rate = values.spawnsPerMinute();
+        final int lifetime = folia ? -1 : values.despawnSeconds();
+        final Settings.ClusterCap cluster = s.cluster();
+        final Settings.Stacking stacking = s.stacking();
+        final boolean counted = cap >= 0 || cluster.enabled() || stacking.enabled() || lifetime >= 0;
+
+        if (counted || rate >= 0) {
+            CreatureSpawner spawner = e.getSpawner();
+            long pos = blockKeyOf(spawner);
+            Stats.Counter refused = SpawnLimits.check(liveBySpawner, spawnRates, slot, pos, spawner, values, cluster);
+            if (refused != null) {
                 e.setCancelled(true);
+                stats.count(refused);
                 return;
             }
 
-            // Tag & increment (optimistic)
             var ent = e.getEntity();
-            var pdc = ent.getPersistentDataContainer();
-            if (pdc.get(ORIGIN_KEY, org.bukkit.persistence.PersistentDataType.STRING) == null) {
-                pdc.set(ORIGIN_KEY, org.bukkit.persistence.PersistentDataType.STRING, encode(key));
-                liveBySpawner.put(key, live + 1);
+            if (stacking.enabled() && ent instanceof LivingEntity && joinStack(ent, slot, pos, stacking)) {
+                e.setCancelled(true);
+                stats.count(Stats.Counter.SPAWNS_STACKED);
+                return;
             }
+
+            // Tag & increment (optimistic)
+            if (counted) {
+                var pdc = ent.getPersistentDataContainer();
+                if (!origin.isTagged(pdc)) {
+                    origin.write(pdc, world, pos);
+                    trackedTypes.add(ent.getType());
+                    Location at = e.getLocation();
+                    UUID id = ent.getUniqueId();
+                    tracked.track(ent.getEntityId(), id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                            slot, pos, 1, slot, SpawnerIndexFile.chunkKey(at.getBlockX() >> 4, at.getBlockZ() >> 4));
+                    if (lifetime >= 0) {
+                        long ticks = lifetime * 20L;
+                        pdc.set(EXPIRES_KEY, PersistentDataType.LONG, ent.getWorld().getGameTime() + ticks);
+                        despawns.schedule(id.getMostSignificantBits(), id.getLeastSignificantBits(), ticks);
+                    }
+                }
+            }
+        }
+        stats.count(Stats.Counter.SPAWNS_ALLOWED);
+    }
+
+    // Spawns are counted at NORMAL priority; one cancelled later by another plugin never enters the world.
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSpawnerSpawnCancelled(org.bukkit.event.entity.SpawnerSpawnEvent e) {
+        if (!e.isCancelled()) return;
+        Entity ent = e.getEntity();
+        if (mayBeTracked(ent)) tracked.untrack(ent.getEntityId());
+    }
+
+    // Entities stream in separately from their chunk since 1.17; count them as they arrive, in place of
+    // whatever was parked for the chunk when it last unloaded (or in the snapshot).
+    @EventHandler
+    public void onEntitiesLoad(EntitiesLoadEvent e) {
+        int slot = liveBySpawner.slot(e.getWorld().getUID());
+        Chunk c = e.getChunk();
+        long chunkKey = SpawnerIndexFile.chunkKey(c.getX(), c.getZ());
+        parked.release(slot, chunkKey);
+        for (Entity ent : e.getEntities()) {
+            trackIfTagged(ent, slot, chunkKey);
         }
     }
 
+    // One pass over the unloading chunk's entities by id; no PDC reads. Counted mobs stay counted,
+    // parked under this chunk until it loads again. Fires before the entities' removal events, which
+    // then find nothing left to untrack.
     @EventHandler
+    public void onEntitiesUnload(EntitiesUnloadEvent e) {
+        if (tracked.size() == 0) return;
+        int slot = -1;
+        long chunkKey = 0;
+        for (Entity ent : e.getEntities()) {
+            if (!trackedTypes.contains(ent.getType())) continue;
+            if (slot < 0) {
+                slot = liveBySpawner.slot(e.getWorld().getUID());
+                Chunk c = e.getChunk();
+                chunkKey = SpawnerIndexFile.chunkKey(c.getX(), c.getZ());
+            }
+            tracked.park(ent.getEntityId(), parked, slot, chunkKey);
+        }
+    }
+
+    // A stack loses one mob per kill: the death is cancelled, the holder revived, and one mob's loot dropped.
+    // Runs before MONITOR so the untrack below never sees the cancelled death.
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onStackDeath(org.bukkit.event.entity.EntityDeathEvent e) {
+        LivingEntity ent = e.getEntity();
+        if (!mayBeTracked(ent)) return;
+        int units = tracked.units(ent.getEntityId());
+        if (units <= 1) return;
+
+        List<ItemStack> drops = new ArrayList<>(e.getDrops());
+        int xp = e.getDroppedExp();
+        AttributeInstance maxHealth = ent.getAttribute(Attribute.MAX_HEALTH);
+        e.setCancelled(true);
+        e.setReviveHealth(maxHealth != null ? maxHealth.getValue() : 1.0);
+        ent.setFireTicks(0);
+
+        World w = ent.getWorld();
+        Location at = ent.getLocation();
+        for (ItemStack item : drops) {
+            if (item != null && !item.getType().isAir()) w.dropItemNaturally(at, item);
+        }
+        if (xp > 0) w.spawn(at, ExperienceOrb.class, orb -> orb.setExperience(xp));
+
+        tracked.addUnits(ent.getEntityId(), -1);
+        stacks.write(ent, units - 1, settings.stacking().showCount());
+        stats.count(Stats.Counter.STACK_KILLS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onEntityDeath(org.bukkit.event.entity.EntityDeathEvent e) {
-        decrementIfTagged(e.getEntity());
+        long t0 = stats.start();
+        Entity ent = e.getEntity();
+        if (mayBeTracked(ent)) tracked.untrack(ent.getEntityId());
+        stats.stop(Stats.Timer.ENTITY_DEATH, t0);
     }
 
     // Paper-only optimization: count unload/removal too (keeps map tidy when chunks unload).
+    // Untracking is idempotent, so a death followed by its removal only counts once.
+    // Fires for every item, orb and projectile, so most calls end at the type check.
     @EventHandler
     public void onEntityRemove(EntityRemoveFromWorldEvent e) {
-        decrementIfTagged(e.getEntity());
+        long t0 = stats.start();
+        Entity ent = e.getEntity();
+        if (mayBeTracked(ent)) tracked.untrack(ent.getEntityId());
+        stats.stop(Stats.Timer.ENTITY_REMOVE, t0);
+    }
+
+    // Cheap pre-filter before the tracked-id lookup and its lock: a plain read of the type flags.
+    private boolean mayBeTracked(Entity ent) {
+        return tracked.size() != 0 && trackedTypes.contains(ent.getType());
     }
 
     // ========== Core logic ==========
 
-    private void decrementIfTagged(org.bukkit.entity.Entity ent) {
-        var pdc = ent.getPersistentDataContainer();
-        String s = pdc.get(ORIGIN_KEY, org.bukkit.persistence.PersistentDataType.STRING);
-        if (s == null) return;
-        SpawnerKey key = decode(s);
-        if (key == null) return;
-        liveBySpawner.computeIfPresent(key, (k, v) -> Math.max(0, v - 1));
+    // Returns the units now counted for the entity; 0 when it is untagged or was already counted.
+    private int trackIfTagged(Entity ent, int homeSlot, long homeChunk) {
+        if (tracked.isTracked(ent.getEntityId())) return 0;
+        PersistentDataContainer pdc = ent.getPersistentDataContainer();
+        long[] tag = origin.read(pdc);
+        if (tag == null) {
+            // Only worth telling apart from "untagged" when someone is counting.
+            if (stats.isEnabled() && origin.isTagged(pdc)) stats.count(Stats.Counter.TAG_DECODE_FAILURES);
+            return 0;
+        }
+        int slot = liveBySpawner.slot(tag[OriginTag.WORLD_MOST], tag[OriginTag.WORLD_LEAST]);
+        trackedTypes.add(ent.getType());
+        UUID id = ent.getUniqueId();
+        int units = stacks.read(pdc);
+        if (!tracked.track(ent.getEntityId(), id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                slot, tag[OriginTag.BLOCK_KEY], units, homeSlot, homeChunk)) return 0;
+        if (!folia) {
+            // Every load schedules again; entries left from earlier loads of the same mob find it gone or
+            // not yet due and drop or requeue themselves.
+            Long expires = pdc.get(EXPIRES_KEY, PersistentDataType.LONG);
+            if (expires != null) {
+                despawns.schedule(id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                        expires - ent.getWorld().getGameTime());
+            }
+        }
+        return units;
+    }
+
+    private void tickDespawns() {
+        if (despawns.size() == 0) return;
+        long t0 = stats.start();
+        despawnBudget = settings.despawnsPerTick();
+        despawns.tick(this::expire);
+        stats.stop(Stats.Timer.DESPAWN_TICK, t0);
+    }
+
+    // The mob's tag is the source of truth; the wheel entry is only a reminder to look at it.
+    private void expire(long most, long least) {
+        Entity ent = Bukkit.getEntity(new UUID(most, least));
+        if (ent == null || !ent.isValid()) return; // unloaded: scheduled again when its chunk loads
+        Long expires = ent.getPersistentDataContainer().get(EXPIRES_KEY, PersistentDataType.LONG);
+        if (expires == null) return;
+        long left = expires - ent.getWorld().getGameTime();
+        if (left > 0 || despawnBudget <= 0) {
+            despawns.schedule(most, least, left);
+            return;
+        }
+        despawnBudget--;
+        tracked.untrack(ent.getEntityId());
+        ent.remove();
+        stats.count(Stats.Counter.MOBS_DESPAWNED);
+    }
+
+    // Adds the new spawn to a living mob of the same type from the same spawner, if one has room.
+    private boolean joinStack(Entity spawned, int slot, long spawnerKey, Settings.Stacking stacking) {
+        EntityType type = spawned.getType();
+        double r = stacking.radius();
+        for (Entity other : spawned.getWorld().getNearbyEntities(spawned.getLocation(), r, r, r, o -> o.getType() == type)) {
+            if (other == spawned || other.isDead() || !(other instanceof LivingEntity)) continue;
+            int id = other.getEntityId();
+            int units = tracked.units(id);
+            if (units == 0 || units >= stacking.maxStack() || !tracked.isFrom(id, slot, spawnerKey)) continue;
+            if (!tracked.addUnits(id, 1)) continue;
+            stacks.write(other, units + 1, stacking.showCount());
+            return true;
+        }
+        return false;
+    }
+
+    // Returns the number of spawners visited.
+    private int applyToChunk(Chunk chunk) {
+        return applyToChunk(chunk, null);
     }
 
-    private void applyToChunk(Chunk chunk) {
+    // Only tweaks the spawners inside within, when given; the index still learns every spawner in the chunk.
+    private int applyToChunk(Chunk chunk, SpawnerQuery.Sphere within) {
+        SpawnerIndex.WorldIndex wi = index.world(chunk.getWorld());
+        int slot = liveBySpawner.slot(chunk.getWorld().getUID());
+        int cx = chunk.getX(), cz = chunk.getZ();
         try {
+            if (wi.isScanned(cx, cz)) {
+                long[] known = wi.chunk(cx, cz);
+                if (known == null) return 0; // known to have no spawner: skip the tile-entity snapshot
+                int visited = 0;
+                for (long entry : known) {
+                    int pos = SpawnerIndexFile.localPos(entry);
+                    if (within != null && !within.contains((cx << 4) | SpawnerIndexFile.localX(pos),
+                            SpawnerIndexFile.localY(pos), (cz << 4) | SpawnerIndexFile.localZ(pos))) continue;
+                    Block b = chunk.getBlock(SpawnerIndexFile.localX(pos), SpawnerIndexFile.localY(pos), SpawnerIndexFile.localZ(pos));
+                    if (b.getType() != Material.SPAWNER) {
+                        // Removed without us seeing it (explosion, WorldEdit, ...)
+                        wi.remove(b.getX(), b.getY(), b.getZ());
+                        continue;
+                    }
+                    BlockState state = b.getState();
+                    if (state instanceof CreatureSpawner cs && cs.getSpawnedType() != SpawnerIndex.typeOf(entry)) {
+                        wi.put(b.getX(), b.getY(), b.getZ(), cs.getSpawnedType());
+                    }
+                    tweakSpawner(state, slot, "chunk");
+                    visited++;
+                }
+                return visited;
+            }
+
+            // First time we see this chunk: one full snapshot, remembered for next time.
             // Paper/Spigot still expose tile entities via chunk.getTileEntities() in 1.20/1.21.
+            long[] found = null;
+            int n = 0, visited = 0;
             for (BlockState state : chunk.getTileEntities()) {
-                if (state instanceof CreatureSpawner) {
-                    tweakSpawner(state, "chunk");
+                if (state instanceof CreatureSpawner cs) {
+                    if (found == null) found = new long[4];
+                    else if (n == found.length) found = Arrays.copyOf(found, n * 2);
+                    found[n++] = SpawnerIndex.entry(state.getX(), state.getY(), state.getZ(), cs.getSpawnedType());
+                    if (within != null && !within.contains(state.getX(), state.getY(), state.getZ())) continue;
+                    tweakSpawner(state, slot, "chunk");
+                    visited++;
                 }
             }
+            wi.replaceChunk(cx, cz, found == null ? null : Arrays.copyOf(found, n));
+            return visited;
         } catch (Throwable t) {
             log.warning("Failed to iterate tile entities in chunk " +
                     chunk.getX() + "," + chunk.getZ() + " (" + t.getClass().getSimpleName() + "): " + t.getMessage());
+            return 0;
+        }
+    }
+
+    // Deduplicated and time-budgeted: the global drain on Paper, the chunk's own region a tick later on Folia.
+    private void queueChunkWork(World w, int cx, int cz) {
+        if (!folia) {
+            chunkQueue.offer(w, cx, cz);
+        } else if (chunkQueue.mark(w, cx, cz)) {
+            Bukkit.getRegionScheduler().runDelayed(this, w, cx, cz, t -> {
+                if (chunkQueue.remove(w, cx, cz)) processLoadedChunk(w, cx, cz);
+            }, 1L);
         }
     }
 
-    private void tweakSpawner(BlockState state, String reason) {
+    // Loaded chunks around players that hold spawners go back through the chunk queue, so a shedding
+    // level change reaches the spawners that can actually run within the usual per-tick budget.
+    private void queueSpawnersNearPlayers() {
+        int r = settings.shedding().playerChunkRadius();
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            World w = p.getWorld();
+            SpawnerIndex.WorldIndex wi = index.world(w);
+            Location loc = p.getLocation();
+            int pcx = loc.getBlockX() >> 4, pcz = loc.getBlockZ() >> 4;
+            for (int cz = pcz - r; cz <= pcz + r; cz++) {
+                for (int cx = pcx - r; cx <= pcx + r; cx++) {
+                    if (wi.chunk(cx, cz) != null && w.isChunkLoaded(cx, cz)) queueChunkWork(w, cx, cz);
+                }
+            }
+        }
+    }
+
+    // Load-time work for one chunk, run from the chunk queue.
+    private void processLoadedChunk(World w, int cx, int cz) {
+        if (!w.isChunkLoaded(cx, cz)) return;
+        long t0 = stats.start();
+        Chunk chunk = w.getChunkAt(cx, cz);
+        applyToChunk(chunk);
+        stats.stop(Stats.Timer.CHUNK_WORK, t0);
+    }
+
+    // Chunks loaded before we were enabled never fired ChunkLoadEvent; scan the ones the index has not seen.
+    private void indexLoadedChunks() {
+        for (World w : Bukkit.getWorlds()) {
+            SpawnerIndex.WorldIndex wi = index.world(w);
+            for (Chunk c : w.getLoadedChunks()) {
+                if (!wi.isScanned(c.getX(), c.getZ())) applyToChunk(c);
+            }
+        }
+    }
+
+    private void tweakSpawner(BlockState state, int worldSlot, String reason) {
         if (!(state instanceof CreatureSpawner cs)) return;
+        long t0 = stats.start();
+        try {
+            applyTweak(cs, worldSlot, reason);
+        } finally {
+            stats.stop(Stats.Timer.TWEAK_SPAWNER, t0);
+        }
+    }
 
+    private void applyTweak(CreatureSpawner cs, int worldSlot, String reason) {
         EntityType type = cs.getSpawnedType();
-        World world = cs.getWorld();
+        Settings s = settings;
+        Settings.Effective eff = s.effective(worldSlot, cs.getWorld().getName(), type, shedder.level(), matchRule(s, cs));
+        // Already tweaked under the same effective values (and type): nothing to read or write.
+        Stats.Counter done = SpawnerTweak.tweak(cs, TWEAK_KEY, eff);
+        if (done == null) return;
+        stats.count(done);
+        if (done == Stats.Counter.SPAWNERS_REWRITTEN) {
+            debug("Tweaked spawner at " + cs.getLocation() + " [" + type + "] via " + reason);
+        }
+    }
 
-        if (!settings.isEntityAllowed(type)) return;
+    // First rule matching the spawner, or -1. Biome and placement are only read when some rule asks for them.
+    private int matchRule(Settings s, CreatureSpawner cs) {
+        SpawnerRules rules = s.rules();
+        if (rules.isEmpty()) return -1;
+        World w = cs.getWorld();
+        int x = cs.getX(), y = cs.getY(), z = cs.getZ();
+        Biome biome = rules.usesBiome() ? w.getBiome(x, y, z) : null;
+        boolean placed = rules.usesSource() && cs.getPersistentDataContainer().has(PLACED_KEY, PersistentDataType.BYTE);
+        return rules.match(w.getName(), cs.getSpawnedType(), biome, x, y, z, placed);
+    }
 
-        SpawnerValues values = settings.resolve(world.getName(), type);
+    private void applyAllLoadedAsync(CommandSender feedback) {
+        applyAllLoadedAsync(feedback, Bukkit.getWorlds(), false);
+    }
 
-        // Apply safety caps and skip unchanged (-1 means do not touch).
-        boolean changed = false;
+    // One budgeted sweep per world over the loaded chunks the index knows to hold spawners. A rescan sweeps
+    // every loaded chunk instead, with their scanned marks dropped first, so each gets a full tile-entity
+    // snapshot and spawners the index missed are found. Unloaded chunks keep their marks either way.
+    private void applyAllLoadedAsync(CommandSender feedback, List<World> worlds, boolean rescan) {
+        for (World w : worlds) {
+            if (sweeps.isRunning(w)) {
+                if (feedback != null) feedback.sendMessage("SpawnerTweaks: applyall is already running in '" + w.getName() + "'.");
+                continue;
+            }
 
-        // Must set the max spawn delay first so the min spawn delay doesn't error out
-        if (values.maxSpawnDelay() >= 0) {
-            int v = settings.disableSafetyCaps() ? values.maxSpawnDelay() :
-                    Math.max(values.maxSpawnDelay(), HARD_MAX_SPAWN_DELAY);
-            if (cs.getMaxSpawnDelay() != v) {
-                cs.setMaxSpawnDelay(v);
-                changed = true;
+            SpawnerIndex.WorldIndex wi = index.world(w);
+            long[] keys;
+            if (rescan) {
+                Chunk[] loaded = w.getLoadedChunks();
+                keys = new long[loaded.length];
+                for (int i = 0; i < loaded.length; i++) keys[i] = SpawnerIndexFile.chunkKey(loaded[i].getX(), loaded[i].getZ());
+                wi.forgetScanned(keys);
+            } else {
+                keys = loadedOnly(w, wi.chunkKeys());
             }
-        }
-        if (values.minSpawnDelay() >= 0) {
-            int v = settings.disableSafetyCaps() ? values.minSpawnDelay() :
-                    Math.max(values.minSpawnDelay(), HARD_MIN_SPAWN_DELAY);
-            if (cs.getMinSpawnDelay() != v) {
-                cs.setMinSpawnDelay(v);
-                changed = true;
+
+            if (keys.length == 0) {
+                if (feedback != null) {
+                    feedback.sendMessage("SpawnerTweaks: no " + (rescan ? "loaded chunks" : "loaded chunks with spawners")
+                            + " to update in '" + w.getName() + "'.");
+                }
+                continue;
+            }
+            if (feedback != null) {
+                feedback.sendMessage("SpawnerTweaks: " + (rescan ? "rescanning " + keys.length + " loaded chunks"
+                        : "updating " + keys.length + " chunks with spawners") + " in '" + w.getName() + "'...");
             }
+            sweeps.start(w, keys, feedback);
         }
+    }
 
-        // Same with the spawn count and nearby entities
-        if (values.maxNearbyEntities() >= 0) {
-            int v = settings.disableSafetyCaps() ? values.maxNearbyEntities() :
-                    Math.min(values.maxNearbyEntities(), HARD_MAX_NEARBY);
-            if (cs.getMaxNearbyEntities() != v) {
-                cs.setMaxNearbyEntities(v);
-                changed = true;
-            }
+    // Chunks that are unloaded now would be skipped by the sweep anyway; they are tweaked when they load.
+    private static long[] loadedOnly(World w, long[] keys) {
+        int n = 0;
+        for (long key : keys) {
+            if (w.isChunkLoaded(SpawnerIndexFile.chunkX(key), SpawnerIndexFile.chunkZ(key))) keys[n++] = key;
         }
-        if (values.spawnCount() >= 0) {
-            int v = settings.disableSafetyCaps() ? values.spawnCount() :
-                    Math.min(values.spawnCount(), HARD_MAX_SPAWN_COUNT);
-            if (cs.getSpawnCount() != v) {
-                cs.setSpawnCount(v);
-                changed = true;
-            }
+        return n == keys.length ? keys : Arrays.copyOf(keys, n);
+    }
+
+    private void controlSweeps(CommandSender sender, String action, World w) {
+        String scope = w == null ? "" : " in '" + w.getName() + "'";
+        switch (action) {
+            case "status" -> sweeps.status(sender);
+            case "pause" -> sender.sendMessage("SpawnerTweaks: paused " + sweeps.setState(w, ApplyAllScheduler.State.PAUSED) + " sweep(s)" + scope + ".");
+            case "resume" -> sender.sendMessage("SpawnerTweaks: resumed " + sweeps.setState(w, ApplyAllScheduler.State.RUNNING) + " sweep(s)" + scope + ".");
+            case "cancel" -> sender.sendMessage("SpawnerTweaks: cancelled " + sweeps.cancel(w) + " sweep(s)" + scope + ".");
+            default -> sendHelp(sender);
         }
+    }
 
-        if (values.requiredPlayerRange() >= 0) {
-            int v = settings.disableSafetyCaps() ? values.requiredPlayerRange() :
-                    Math.min(values.requiredPlayerRange(), HARD_MAX_PLAYER_RANGE);
-            if (cs.getRequiredPlayerRange() != v) {
-                cs.setRequiredPlayerRange(v);
-                changed = true;
+    // With load: STARTUP there are no worlds yet and EntitiesLoadEvent covers everything. This walk only
+    // happens when the plugin is enabled late, e.g. by a plugin manager, and stands in for the load
+    // events those entities already had.
+    private void countLoadedEntities() {
+        for (World w : Bukkit.getWorlds()) {
+            int slot = liveBySpawner.slot(w.getUID());
+            for (Chunk c : w.getLoadedChunks()) {
+                if (c.isEntitiesLoaded()) parked.release(slot, SpawnerIndexFile.chunkKey(c.getX(), c.getZ()));
             }
-        }
-        if (values.spawnRange() >= 0) {
-            int v = settings.disableSafetyCaps() ? values.spawnRange() :
-                    Math.min(values.spawnRange(), HARD_MAX_SPAWN_RANGE);
-            if (cs.getSpawnRange() != v) {
-                cs.setSpawnRange(v);
-                changed = true;
+            for (Entity ent : w.getEntities()) {
+                Location at = ent.getLocation();
+                trackIfTagged(ent, slot, SpawnerIndexFile.chunkKey(at.getBlockX() >> 4, at.getBlockZ() >> 4));
             }
         }
+    }
 
-        if (changed) {
-            cs.update();
-            debug("Tweaked spawner at " + state.getLocation() + " [" + type + "] via " + reason);
+    // Parked tallies plus every tracked entity under its home chunk. Safe from any thread.
+    private void saveCounts() {
+        List<LongObjectMap<long[]>> chunks = new ArrayList<>();
+        parked.forEach((slot, chunkKey, entries) -> {
+            LongObjectMap<long[]> m = CountSnapshot.chunksOf(chunks, slot);
+            long[] merged = m.get(chunkKey);
+            for (int i = 0; i < entries.length; i += 2) {
+                merged = CountSnapshot.add(merged, CountSnapshot.world(entries[i + 1]), entries[i],
+                        CountSnapshot.units(entries[i + 1]));
+            }
+            m.put(chunkKey, merged);
+        });
+        tracked.forEach((slot, spawnerKey, units, homeSlot, homeChunk) -> {
+            LongObjectMap<long[]> m = CountSnapshot.chunksOf(chunks, homeSlot);
+            m.put(homeChunk, CountSnapshot.add(m.get(homeChunk), slot, spawnerKey, units));
+        });
+        // Read last: every slot seen above is already in it.
+        long[] worlds = liveBySpawner.worldIds();
+        java.nio.file.Path file = getDataFolder().toPath().resolve("counts.bin");
+        try {
+            SpawnerIndexFile.write(file, CountSnapshot.encode(new CountSnapshot.Contents(worlds, chunks)));
+        } catch (IOException ex) {
+            log.warning("Failed to save " + file.getFileName() + ": " + ex.getMessage());
         }
     }
 
-    private void applyAllLoadedAsync(CommandSender feedback) {
-        applyAllLoadedAsync(feedback, Bukkit.getWorlds());
+    // Runs before any entity loads; the saved tallies count until their chunks are seen again.
+    private void loadCounts() {
+        java.nio.file.Path file = getDataFolder().toPath().resolve("counts.bin");
+        if (!java.nio.file.Files.isRegularFile(file)) return;
+        CountSnapshot.Contents c;
+        try {
+            c = CountSnapshot.read(file);
+        } catch (IOException ex) {
+            log.warning("Ignoring live count snapshot: " + ex.getMessage());
+            return;
+        }
+        long[] w = c.worlds();
+        int[] slots = new int[w.length / 2];
+        for (int i = 0; i < slots.length; i++) slots[i] = liveBySpawner.slot(w[i * 2], w[i * 2 + 1]);
+        for (int i = 0; i < c.chunks().size(); i++) {
+            int slot = slots[i];
+            c.chunks().get(i).forEach((chunkKey, entries) -> {
+                for (int j = 1; j < entries.length; j += 2) {
+                    entries[j] = CountSnapshot.meta(slots[CountSnapshot.world(entries[j])], CountSnapshot.units(entries[j]));
+                }
+                parked.restore(slot, chunkKey, entries);
+            });
+        }
     }
 
-    private void applyAllLoadedAsync(CommandSender feedback, List<World> worlds) {
-        List<Chunk> worklist = new ArrayList<>();
-        for (World w : worlds) {
-            Collections.addAll(worklist, w.getLoadedChunks());
+    // Nearest indexed spawner in a loaded chunk, or null. Index entries the block no longer matches are skipped.
+    private CreatureSpawner nearestSpawner(Player p, int radius) {
+        World w = p.getWorld();
+        SpawnerQuery.Sphere area = SpawnerQuery.around(p.getLocation(), radius);
+        for (SpawnerQuery.Hit h : SpawnerQuery.near(index.world(w), liveBySpawner, liveBySpawner.slot(w.getUID()),
+                area, SpawnerQuery.Order.DISTANCE)) {
+            if (!w.isChunkLoaded(h.x() >> 4, h.z() >> 4)) continue;
+            if (w.getBlockAt(h.x(), h.y(), h.z()).getState() instanceof CreatureSpawner cs) return cs;
         }
+        return null;
+    }
 
-        final int total = worklist.size();
-        if (total == 0) {
-            if (feedback != null) feedback.sendMessage("SpawnerTweaks: no loaded chunks to update.");
+    // Indexed spawners around the player with their live counts, one page at a time.
+    private void listNear(Player p, int radius, SpawnerQuery.Order order, int page) {
+        World w = p.getWorld();
+        SpawnerQuery.Sphere area = SpawnerQuery.around(p.getLocation(), radius);
+        List<SpawnerQuery.Hit> hits = SpawnerQuery.near(index.world(w), liveBySpawner, liveBySpawner.slot(w.getUID()), area, order);
+        if (hits.isEmpty()) {
+            p.sendMessage("SpawnerTweaks: no known spawners within " + radius + " blocks.");
             return;
         }
-
-        if (feedback != null) {
-            if (worlds.size() == 1) {
-                feedback.sendMessage("SpawnerTweaks: updating " + total + " loaded chunks in '" + worlds.getFirst().getName() + "'...");
-            } else {
-                feedback.sendMessage("SpawnerTweaks: updating " + total + " loaded chunks across " + worlds.size() + " worlds...");
-            }
+        int pages = (hits.size() + NEAR_PAGE_SIZE - 1) / NEAR_PAGE_SIZE;
+        page = Math.min(page, pages);
+        String by = order.name().toLowerCase(Locale.ROOT);
+        p.sendMessage("--- SpawnerTweaks: " + hits.size() + " spawners within " + radius + " blocks by " + by
+                + " (page " + page + "/" + pages + ") ---");
+        // Caps depend on the matched rule, which needs the block; only shown when no rules are configured.
+        Settings s = settings;
+        boolean showCap = s.rules().isEmpty();
+        for (int i = (page - 1) * NEAR_PAGE_SIZE; i < Math.min(hits.size(), page * NEAR_PAGE_SIZE); i++) {
+            SpawnerQuery.Hit h = hits.get(i);
+            int cap = showCap && h.type() != null ? s.effective(w.getName(), h.type()).values().spawnCap() : -1;
+            p.sendMessage(String.format(Locale.ROOT, "%d. %s at %d,%d,%d, %.0f blocks, live %d%s",
+                    i + 1, h.type() == null ? "unknown" : h.type().name(), h.x(), h.y(), h.z(), h.distance(), h.live(),
+                    cap >= 0 ? " / " + cap : ""));
         }
+        if (page < pages) p.sendMessage("Next page: /st near " + radius + " " + by + " " + (page + 1));
+    }
 
-        new org.bukkit.scheduler.BukkitRunnable() {
-            int processed = 0;
-
-            @Override
-            public void run() {
-                int n = Math.min(CHUNKS_PER_TICK, worklist.size());
-                for (int i = 0; i < n; i++) {
-                    Chunk c = worklist.removeLast();
-                    try {
-                        applyToChunk(c);
-                    } catch (Throwable t) {
-                        getLogger().warning("ApplyAll: failed on chunk " + c.getX() + "," + c.getZ()
-                                + " in " + c.getWorld().getName() + ": " + t.getClass().getSimpleName()
-                                + ": " + t.getMessage());
-                    }
-                }
-                processed += n;
-
-                if (feedback != null && processed % 2000 == 0 && processed < total) {
-                    feedback.sendMessage("SpawnerTweaks: " + processed + " / " + total + " chunks updated...");
-                }
-
-                if (worklist.isEmpty()) {
-                    if (feedback != null) {
-                        feedback.sendMessage("SpawnerTweaks: finished updating " + processed + " chunks.");
-                    }
-                    cancel();
+    // One budgeted sweep over the loaded chunks holding known spawners within radius of the player; spawners
+    // outside the radius in those chunks are left alone. A rescan sweeps every loaded chunk in range instead,
+    // as /st applyall rescan does for a whole world; spawners it finds outside the radius are only indexed.
+    private void applyAllNear(Player p, int radius, boolean rescan) {
+        World w = p.getWorld();
+        if (sweeps.isRunning(w)) {
+            p.sendMessage("SpawnerTweaks: applyall is already running in '" + w.getName() + "'.");
+            return;
+        }
+        SpawnerQuery.Sphere area = SpawnerQuery.around(p.getLocation(), radius);
+        long[] keys;
+        if (rescan) {
+            int minCx = (area.x() - radius) >> 4, minCz = (area.z() - radius) >> 4;
+            int maxCx = (area.x() + radius) >> 4, maxCz = (area.z() + radius) >> 4;
+            keys = new long[16];
+            int n = 0;
+            for (int cz = minCz; cz <= maxCz; cz++) {
+                for (int cx = minCx; cx <= maxCx; cx++) {
+                    if (!w.isChunkLoaded(cx, cz)) continue;
+                    if (n == keys.length) keys = Arrays.copyOf(keys, n * 2);
+                    keys[n++] = SpawnerIndexFile.chunkKey(cx, cz);
                 }
             }
-        }.runTaskTimer(this, 1L, 1L);
+            keys = Arrays.copyOf(keys, n);
+            index.world(w).forgetScanned(keys);
+        } else {
+            keys = loadedOnly(w, SpawnerQuery.chunksWithin(index.world(w), area));
+        }
+        if (keys.length == 0) {
+            p.sendMessage("SpawnerTweaks: no " + (rescan ? "loaded chunks" : "known spawners in loaded chunks")
+                    + " within " + radius + " blocks.");
+            return;
+        }
+        p.sendMessage("SpawnerTweaks: " + (rescan ? "rescanning" : "updating spawners") + " within " + radius
+                + " blocks (" + keys.length + " chunks) in '" + w.getName() + "'...");
+        sweeps.start(w, keys, c -> applyToChunk(c, area), p);
     }
 
-    private void rebuildLiveCountsFromLoadedWorlds() {
-        liveBySpawner.clear();
-        for (World w : Bukkit.getWorlds()) {
-            for (org.bukkit.entity.Entity ent : w.getEntities()) {
-                String s = ent.getPersistentDataContainer().get(ORIGIN_KEY, org.bukkit.persistence.PersistentDataType.STRING);
-                if (s == null) continue;
-                SpawnerKey key = decode(s);
-                if (key == null) continue;
-                liveBySpawner.merge(key, 1, Integer::sum);
-            }
+    // 1..MAX_QUERY_RADIUS, or 0 after telling the sender what was wrong.
+    private static int parseRadius(CommandSender sender, String arg) {
+        int r;
+        try {
+            r = Integer.parseInt(arg);
+        } catch (NumberFormatException ex) {
+            r = 0;
+        }
+        if (r < 1 || r > MAX_QUERY_RADIUS) {
+            sender.sendMessage("Radius must be a number from 1 to " + MAX_QUERY_RADIUS + ", not '" + arg + "'.");
+            return 0;
         }
+        return r;
     }
 
     private CreatureSpawner getTargetedSpawner(org.bukkit.entity.Player p, int maxDist) {
@@ -396,7 +1163,7 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
         if (!sender.hasPermission("spawnertweaks.admin")) return Collections.emptyList();
 
         // Subcommands available
-        List<String> subs = Arrays.asList("help", "reload", "applyall", "info");
+        List<String> subs = Arrays.asList("help", "reload", "applyall", "info", "near", "stats");
 
         if (args.length == 1) {
             List<String> out = new ArrayList<>();
@@ -406,10 +1173,40 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
         }
 
         if (args.length == 2 && args[0].equalsIgnoreCase("applyall")) {
+            List<String> options = new ArrayList<>(SWEEP_CONTROLS);
+            options.add("radius");
+            options.add("rescan");
+            for (World w : Bukkit.getWorlds()) options.add(w.getName());
+            List<String> out = new ArrayList<>();
+            StringUtil.copyPartialMatches(args[1], options, out);
+            Collections.sort(out);
+            return out;
+        }
+
+        if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            List<String> out = new ArrayList<>();
+            StringUtil.copyPartialMatches(args[1], STATS_ACTIONS, out);
+            return out;
+        }
+
+        if (args.length == 3 && args[0].equalsIgnoreCase("near")) {
+            List<String> out = new ArrayList<>();
+            StringUtil.copyPartialMatches(args[2], NEAR_ORDERS, out);
+            return out;
+        }
+
+        if (args.length == 4 && args[0].equalsIgnoreCase("applyall") && args[1].equalsIgnoreCase("radius")) {
+            List<String> out = new ArrayList<>();
+            StringUtil.copyPartialMatches(args[3], List.of("rescan"), out);
+            return out;
+        }
+
+        if (args.length == 3 && args[0].equalsIgnoreCase("applyall")
+                && (SWEEP_CONTROLS.contains(args[1].toLowerCase(Locale.ROOT)) || args[1].equalsIgnoreCase("rescan"))) {
             List<String> worlds = new ArrayList<>();
             for (World w : Bukkit.getWorlds()) worlds.add(w.getName());
             List<String> out = new ArrayList<>();
-            StringUtil.copyPartialMatches(args[1], worlds, out);
+            StringUtil.copyPartialMatches(args[2], worlds, out);
             Collections.sort(out);
             return out;
         }
@@ -425,28 +1222,20 @@ public final class SpawnerTweaks extends JavaPlugin implements Listener, TabComp
         }
         sender.sendMessage("§aSpawnerTweaks §7- commands:");
         sender.sendMessage("§e/spawnertweaks help §7- Show this help.");
-        sender.sendMessage("§e/spawnertweaks reload §7- Reload config, new values will be applied to new chunks.");
-        sender.sendMessage("§e/spawnertweaks applyall §7- Re-apply current config to all loaded spawners (batched).");
+        sender.sendMessage("§e/spawnertweaks reload §7- Reload config and re-apply changed values to spawners in the background.");
+        sender.sendMessage("§e/spawnertweaks applyall §7- Re-apply current config to all known spawners in loaded chunks (batched).");
         sender.sendMessage("§e/spawnertweaks applyall <world> §7- Re-apply only in the specified world.");
-        sender.sendMessage("§e/spawnertweaks info §7- While looking at a spawner, show live values and effective config.");
-    }
-
-    private SpawnerKey keyOf(CreatureSpawner cs) {
-        var loc = cs.getLocation();
-        return new SpawnerKey(loc.getWorld().getUID(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        sender.sendMessage("§e/spawnertweaks applyall rescan [world] §7- Rescan every loaded chunk for spawners the index missed, then re-apply.");
+        sender.sendMessage("§e/spawnertweaks applyall radius <blocks> [rescan] §7- Re-apply (or rescan) only around you.");
+        sender.sendMessage("§e/spawnertweaks applyall status|pause|resume|cancel [world] §7- Inspect or control running sweeps.");
+        sender.sendMessage("§e/spawnertweaks info §7- Show live values and effective config of the spawner you look at (or the nearest).");
+        sender.sendMessage("§e/spawnertweaks near [blocks] [distance|live] [page] §7- List known spawners around you with live counts.");
+        sender.sendMessage("§e/spawnertweaks stats [on|off|reset] §7- Show hot-path timings and counters, or toggle collection.");
     }
 
-    private String encode(SpawnerKey k) {
-        return k.worldId() + "|" + k.x() + "|" + k.y() + "|" + k.z();
-    }
-
-    private SpawnerKey decode(String s) {
-        try {
-            String[] p = s.split("\\|", 4);
-            return new SpawnerKey(UUID.fromString(p[0]), Integer.parseInt(p[1]), Integer.parseInt(p[2]), Integer.parseInt(p[3]));
-        } catch (Exception e) {
-            return null;
-        }
+    // Straight from the block state's coordinates; no Location or key object.
+    private static long blockKeyOf(CreatureSpawner cs) {
+        return Block.getBlockKey(cs.getX(), cs.getY(), cs.getZ());
     }
 
     private void debug(String msg) {
@@ -0,0 +1,299 @@
+package com.github.beemerwt;
+
+import javax.management.*;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hot-path timings and counters. While disabled every call is a single volatile read and returns;
+// start() hands out 0 and stop() ignores it, so the clock is never read.
+// Timings go into power-of-two nanosecond buckets, so percentiles are reported as the bucket's upper bound.
+final class Stats {
+
+    enum Timer {
+        CHUNK_LOAD("onChunkLoad"),
+        CHUNK_WORK("chunkWork"),
+        SPAWNER_SPAWN("onSpawnerSpawn"),
+        ENTITY_REMOVE("onEntityRemove"),
+        ENTITY_DEATH("onEntityDeath"),
+        TWEAK_SPAWNER("tweakSpawner"),
+        APPLYALL_TICK("applyallTick"),
+        DESPAWN_TICK("despawnTick"),
+        RECONCILE_TICK("reconcileTick");
+
+        final String label;
+
+        Timer(String label) {
+            this.label = label;
+        }
+    }
+
+    enum Counter {
+        SPAWNS_ALLOWED("spawnsAllowed"),
+        SPAWNS_CAPPED("spawnsCapped"),
+        SPAWNS_CLUSTER_CAPPED("spawnsClusterCapped"),
+        SPAWNS_RATE_LIMITED("spawnsRateLimited"),
+        SPAWNS_STACKED("spawnsStacked"),
+        STACK_KILLS("stackKills"),
+        MOBS_DESPAWNED("mobsDespawned"),
+        SPAWNERS_REWRITTEN("spawnersRewritten"),
+        SPAWNERS_RESTAMPED("spawnersRestamped"), // stamp was stale but the values already matched
+        SPAWNERS_SKIPPED("spawnersSkipped"),
+        RECONCILE_CHECKED("reconcileChecked"),   // tracked mobs looked up
+        COUNTS_RELEASED("countsReleased"),       // units of tracked mobs that were gone
+        COUNTS_RECOVERED("countsRecovered"),     // units of tagged mobs nobody was counting
+        TAG_DECODE_FAILURES("tagDecodeFailures");
+
+        final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int BUCKETS = 40; // 2^39 ns is about nine minutes
+    private static final Timer[] TIMERS = Timer.values();
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final long DUMP_ROLL_BYTES = 1 << 20;
+
+    private volatile boolean enabled;
+    private volatile long since = System.currentTimeMillis();
+    private final Histogram[] histograms = new Histogram[TIMERS.length];
+    private final LongAdder[] counters = new LongAdder[COUNTERS.length];
+    private ObjectName registered;
+
+    Stats() {
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new Histogram();
+        for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) reset();
+        this.enabled = enabled;
+    }
+
+    long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    void stop(Timer timer, long start) {
+        if (start == 0L) return;
+        histograms[timer.ordinal()].record(System.nanoTime() - start);
+    }
+
+    void count(Counter counter) {
+        if (enabled) counters[counter.ordinal()].increment();
+    }
+
+    void count(Counter counter, long n) {
+        if (enabled) counters[counter.ordinal()].add(n);
+    }
+
+    void reset() {
+        for (Histogram h : histograms) h.reset();
+        for (LongAdder c : counters) c.reset();
+        since = System.currentTimeMillis();
+    }
+
+    long counter(Counter c) {
+        return counters[c.ordinal()].sum();
+    }
+
+    // One line per timer and one for the counters; used by /st stats and the dump file.
+    List<String> report() {
+        List<String> out = new ArrayList<>();
+        long secs = Math.max(1, (System.currentTimeMillis() - since) / 1000);
+        out.add("Since " + Instant.ofEpochMilli(since) + " (" + secs + "s)" + (enabled ? "" : ", collection disabled"));
+        for (Timer t : TIMERS) {
+            Histogram h = histograms[t.ordinal()];
+            long n = h.count.sum();
+            if (n == 0) {
+                out.add(String.format(Locale.ROOT, "  %-15s -", t.label));
+                continue;
+            }
+            out.add(String.format(Locale.ROOT, "  %-15s n=%d (%.1f/s) mean=%.1fus p50<=%.1fus p99<=%.1fus max=%.1fus total=%.1fms",
+                    t.label, n, n / (double) secs, h.total.sum() / (double) n / 1e3,
+                    h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.max() / 1e3, h.total.sum() / 1e6));
+        }
+        StringBuilder sb = new StringBuilder(" ");
+        for (Counter c : COUNTERS) sb.append(' ').append(c.label).append('=').append(counter(c));
+        out.add(sb.toString());
+        return out;
+    }
+
+    // Appends a report, rolling the file over to <name>.1 once it passes 1 MiB.
+    void dump(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        if (Files.isRegularFile(file) && Files.size(file) > DUMP_ROLL_BYTES) {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            w.write("== " + Instant.now() + System.lineSeparator());
+            for (String line : report()) w.write(line + System.lineSeparator());
+        }
+    }
+
+    synchronized void registerMBean(String pluginName) {
+        if (registered != null) return;
+        try {
+            ObjectName name = new ObjectName("com.github.beemerwt:type=" + pluginName + ",name=Stats");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name); // left behind by a plugin reload
+            server.registerMBean(new Bean(), name);
+            registered = name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register stats MBean: " + e.getMessage(), e);
+        }
+    }
+
+    synchronized void unregisterMBean() {
+        if (registered == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+        } catch (JMException ignored) {
+            // already gone
+        }
+        registered = null;
+    }
+
+    private static final class Histogram {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final LongAdder count = new LongAdder();
+        final LongAdder total = new LongAdder();
+        final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            int b = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+            buckets.incrementAndGet(b);
+            count.increment();
+            total.add(nanos);
+            long m;
+            while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos)) { }
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // Upper bound of the bucket holding the q-th sample.
+        long percentile(double q) {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) n += buckets.get(i);
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return i == 0 ? 0 : Math.min(1L << i, max());
+            }
+            return max();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+    }
+
+    // Read-only attributes named <timer>.<count|meanNanos|p50Nanos|p99Nanos|maxNanos> and <counter>,
+    // plus enabled and a reset operation.
+    private final class Bean implements DynamicMBean {
+        private final MBeanInfo info;
+
+        Bean() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            attrs.add(new MBeanAttributeInfo("enabled", "boolean", "Whether stats are being collected", true, false, true));
+            for (Timer t : TIMERS) {
+                for (String s : new String[] { "count", "meanNanos", "p50Nanos", "p99Nanos", "maxNanos" }) {
+                    attrs.add(new MBeanAttributeInfo(t.label + "." + s, "long", t.label + " " + s, true, false, false));
+                }
+            }
+            for (Counter c : COUNTERS) {
+                attrs.add(new MBeanAttributeInfo(c.label, "long", c.label, true, false, false));
+            }
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clear all timings and counters",
+                    new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+            info = new MBeanInfo(Stats.class.getName(), "SpawnerTweaks hot-path stats",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { reset }, null);
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            if (attribute.equals("enabled")) return enabled;
+            for (Counter c : COUNTERS) if (c.label.equals(attribute)) return counter(c);
+            int dot = attribute.indexOf('.');
+            if (dot > 0) {
+                String label = attribute.substring(0, dot);
+                for (Timer t : TIMERS) {
+                    if (!t.label.equals(label)) continue;
+                    Histogram h = histograms[t.ordinal()];
+                    long n = h.count.sum();
+                    switch (attribute.substring(dot + 1)) {
+                        case "count": return n;
+                        case "meanNanos": return n == 0 ? 0L : h.total.sum() / n;
+                        case "p50Nanos": return h.percentile(0.50);
+                        case "p99Nanos": return h.percentile(0.99);
+                        case "maxNanos": return h.max();
+                        default: break;
+                    }
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try {
+                    list.add(new Attribute(a, getAttribute(a)));
+                } catch (AttributeNotFoundException ignored) {
+                    // omitted, as the contract allows
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            if (actionName.equals("reset")) {
+                reset();
+                return null;
+            }
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return info;
+        }
+    }
+}
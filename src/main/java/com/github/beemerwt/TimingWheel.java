@@ -0,0 +1,97 @@
+package com.github.beemerwt;
+
+import java.util.Arrays;
+
+// Hierarchical timing wheel of entity UUIDs: four levels of 256 slots, level 0 one tick per slot and each
+// level above 256 times coarser, covering about 6.8 years. Scheduling is an array append; each tick
+// empties one level-0 slot, and whenever a lower level wraps, the next slot of the level above is
+// redistributed downwards. Slots are flat long arrays of (most, least, due) triples that are reused once
+// emptied, so a large population costs three longs per entity and no per-entity objects.
+// Not thread-safe; owned by the main thread.
+final class TimingWheel {
+
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (BITS * LEVELS)) - 1;
+    private static final int STRIDE = 3;
+
+    interface Sink {
+        void expire(long most, long least);
+    }
+
+    private final long[][][] slots = new long[LEVELS][SLOTS][];
+    private final int[][] sizes = new int[LEVELS][SLOTS];
+    private long now;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    // Due after delayTicks ticks; anything at or below zero fires on the next tick.
+    void schedule(long most, long least, long delayTicks) {
+        long delay = Math.max(1, Math.min(MAX_DELAY, delayTicks));
+        place(most, least, now + delay);
+        size++;
+    }
+
+    // Advances one tick and hands every entry that came due to the sink. The sink may schedule again.
+    void tick(Sink sink) {
+        now++;
+        if ((now & MASK) == 0) {
+            // Highest wrapped level first, so its entries can fall through the levels below in the same tick.
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((now & ((1L << (BITS * level)) - 1)) == 0) cascade(level, (int) (now >>> (BITS * level)) & MASK);
+            }
+        }
+        int i = (int) now & MASK;
+        int n = sizes[0][i];
+        if (n == 0) return;
+        long[] due = slots[0][i];
+        slots[0][i] = null;
+        sizes[0][i] = 0;
+        size -= n / STRIDE;
+        for (int j = 0; j < n; j += STRIDE) sink.expire(due[j], due[j + 1]);
+        if (slots[0][i] == null) slots[0][i] = due; // keep the array for the next round
+    }
+
+    void clear() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < SLOTS; i++) {
+                slots[level][i] = null;
+                sizes[level][i] = 0;
+            }
+        }
+        size = 0;
+    }
+
+    private void cascade(int level, int i) {
+        int n = sizes[level][i];
+        if (n == 0) return;
+        long[] moving = slots[level][i];
+        sizes[level][i] = 0;
+        slots[level][i] = null;
+        for (int j = 0; j < n; j += STRIDE) place(moving[j], moving[j + 1], moving[j + 2]);
+        if (slots[level][i] == null) slots[level][i] = moving;
+    }
+
+    private void place(long most, long least, long due) {
+        long delta = due - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) level++;
+        int i = (int) (due >>> (BITS * level)) & MASK;
+        long[] slot = slots[level][i];
+        int n = sizes[level][i];
+        if (slot == null) {
+            slot = slots[level][i] = new long[STRIDE * 4];
+        } else if (n == slot.length) {
+            slot = slots[level][i] = Arrays.copyOf(slot, n * 2);
+        }
+        slot[n] = most;
+        slot[n + 1] = least;
+        slot[n + 2] = due;
+        sizes[level][i] = n + STRIDE;
+    }
+}
@@ -0,0 +1,288 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Entity id -> (UUID, world slot, spawner block key, units, home chunk) for every tagged entity we have counted. Counting goes
+// through here so each entity is added and removed exactly once, whichever events (death, removal, unload)
+// fire. An entity stands for one unit unless it is a stack, which counts as every mob it holds.
+// The home chunk is where the entity was when it was counted; mobs wander, so it is only a best guess of
+// where a still-loaded entity would be stored, used for count snapshots. The UUID lets the reconciler look
+// the entity up to see whether it still exists.
+// Ids are spread over independently locked tables so region threads do not contend; a table lock is always
+// taken before a LiveCounts stripe lock, never the other way round.
+final class TrackedEntities {
+
+    private static final int TABLES = 32; // power of two
+
+    interface Visitor {
+        void visit(int worldSlot, long spawnerKey, int units, int homeSlot, long homeChunk);
+    }
+
+    private final LiveCounts counts;
+    private final Table[] tables = new Table[TABLES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    TrackedEntities(LiveCounts counts) {
+        this.counts = counts;
+        for (int i = 0; i < TABLES; i++) tables[i] = new Table();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    boolean isTracked(int entityId) {
+        Table t = table(entityId);
+        synchronized (t) {
+            return t.indexOf(entityId) >= 0;
+        }
+    }
+
+    // Units the entity counts for; 0 when it is not tracked.
+    int units(int entityId) {
+        Table t = table(entityId);
+        synchronized (t) {
+            int i = t.indexOf(entityId);
+            return i < 0 ? 0 : t.units[i];
+        }
+    }
+
+    boolean isFrom(int entityId, int worldSlot, long spawnerKey) {
+        Table t = table(entityId);
+        synchronized (t) {
+            int i = t.indexOf(entityId);
+            return i >= 0 && t.worlds[i] == worldSlot && t.spawners[i] == spawnerKey;
+        }
+    }
+
+    // Home defaults to the spawner's own chunk. The UUID is left unknown (0, 0), which the reconciler skips.
+    boolean track(int entityId, int worldSlot, long spawnerKey) {
+        return track(entityId, 0L, 0L, worldSlot, spawnerKey, 1, worldSlot, SpawnerIndexFile.chunkKey(
+                Block.getBlockKeyX(spawnerKey) >> 4, Block.getBlockKeyZ(spawnerKey) >> 4));
+    }
+
+    // Counts the entity against its spawner. Returns false when it was already counted.
+    boolean track(int entityId, long most, long least, int worldSlot, long spawnerKey, int units, int homeSlot, long homeChunk) {
+        Table t = table(entityId);
+        synchronized (t) {
+            if (!t.insert(entityId, most, least, worldSlot, spawnerKey, units, homeSlot, homeChunk)) return false;
+            counts.add(worldSlot, spawnerKey, units);
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    // Releases the entity's count. Returns false when it was not tracked.
+    boolean untrack(int entityId) {
+        Table t = table(entityId);
+        synchronized (t) {
+            int i = t.indexOf(entityId);
+            if (i < 0) return false;
+            counts.add(t.worlds[i], t.spawners[i], -t.units[i]);
+            t.delete(i);
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    // Stops tracking an entity that is unloading with its chunk, handing its units to parked under that
+    // chunk instead of releasing them. Returns false when it was not tracked.
+    boolean park(int entityId, ParkedCounts parked, int chunkSlot, long chunkKey) {
+        Table t = table(entityId);
+        synchronized (t) {
+            int i = t.indexOf(entityId);
+            if (i < 0) return false;
+            parked.park(chunkSlot, chunkKey, t.worlds[i], t.spawners[i], t.units[i]);
+            t.delete(i);
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    void forEach(Visitor v) {
+        for (Table t : tables) {
+            synchronized (t) {
+                for (int i = 0; i < t.ids.length; i++) {
+                    if (t.ids[i] != Table.FREE) v.visit(t.worlds[i], t.spawners[i], t.units[i], t.homeWorlds[i], t.homes[i]);
+                }
+            }
+        }
+    }
+
+    // Copies up to ids.length tracked entities with a known UUID into ids/most/least, continuing from
+    // cursor[0] (table << 32 | index) and advancing it; it wraps to 0 after the last table. Tables are
+    // locked one at a time, so entities tracked or dropped meanwhile may be missed or seen twice.
+    int sample(long[] cursor, int[] ids, long[] most, long[] least) {
+        int n = 0;
+        int ti = (int) (cursor[0] >>> 32), i = (int) cursor[0];
+        while (n < ids.length && ti < TABLES) {
+            Table t = tables[ti];
+            synchronized (t) {
+                for (; i < t.ids.length && n < ids.length; i++) {
+                    if (t.ids[i] == Table.FREE || (t.mosts[i] == 0L && t.leasts[i] == 0L)) continue;
+                    ids[n] = t.ids[i];
+                    most[n] = t.mosts[i];
+                    least[n] = t.leasts[i];
+                    n++;
+                }
+                if (i < t.ids.length) break;
+            }
+            ti++;
+            i = 0;
+        }
+        cursor[0] = ti >= TABLES ? 0L : (long) ti << 32 | i;
+        return n;
+    }
+
+    // Grows or shrinks a tracked stack, never below one unit. Returns false when the entity is not tracked.
+    boolean addUnits(int entityId, int delta) {
+        Table t = table(entityId);
+        synchronized (t) {
+            int i = t.indexOf(entityId);
+            if (i < 0) return false;
+            int next = Math.max(1, t.units[i] + delta);
+            counts.add(t.worlds[i], t.spawners[i], next - t.units[i]);
+            t.units[i] = next;
+        }
+        return true;
+    }
+
+    void clear() {
+        for (Table t : tables) {
+            synchronized (t) {
+                size.addAndGet(-t.size);
+                t.clear();
+            }
+        }
+    }
+
+    private Table table(int entityId) {
+        return tables[(int) (LongIntMap.mix(entityId) >>> 59) & (TABLES - 1)];
+    }
+
+    // Open addressing on int ids (linear probing, backward-shift deletion).
+    private static final class Table {
+        private static final int FREE = -1; // entity ids are never negative
+        private static final float LOAD_FACTOR = 0.6f;
+
+        int[] ids;
+        long[] mosts, leasts;
+        int[] worlds;
+        long[] spawners;
+        int[] units;
+        int[] homeWorlds;
+        long[] homes;
+        int mask;
+        int size;
+        int resizeAt;
+
+        Table() {
+            allocate(16);
+        }
+
+        int indexOf(int entityId) {
+            int i = slot(entityId);
+            while (true) {
+                int k = ids[i];
+                if (k == entityId) return i;
+                if (k == FREE) return -1;
+                i = (i + 1) & mask;
+            }
+        }
+
+        boolean insert(int entityId, long most, long least, int worldSlot, long spawnerKey, int count, int homeSlot, long homeChunk) {
+            int i = slot(entityId);
+            while (true) {
+                int k = ids[i];
+                if (k == entityId) return false;
+                if (k == FREE) break;
+                i = (i + 1) & mask;
+            }
+            ids[i] = entityId;
+            mosts[i] = most;
+            leasts[i] = least;
+            worlds[i] = worldSlot;
+            spawners[i] = spawnerKey;
+            units[i] = count;
+            homeWorlds[i] = homeSlot;
+            homes[i] = homeChunk;
+            if (++size >= resizeAt) rehash(ids.length << 1);
+            return true;
+        }
+
+        void delete(int gap) {
+            int i = gap;
+            while (true) {
+                i = (i + 1) & mask;
+                int k = ids[i];
+                if (k == FREE) break;
+                int home = slot(k);
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    ids[gap] = k;
+                    mosts[gap] = mosts[i];
+                    leasts[gap] = leasts[i];
+                    worlds[gap] = worlds[i];
+                    spawners[gap] = spawners[i];
+                    units[gap] = units[i];
+                    homeWorlds[gap] = homeWorlds[i];
+                    homes[gap] = homes[i];
+                    gap = i;
+                }
+            }
+            ids[gap] = FREE;
+            size--;
+        }
+
+        void clear() {
+            Arrays.fill(ids, FREE);
+            size = 0;
+        }
+
+        private int slot(int id) {
+            return (int) LongIntMap.mix(id) & mask;
+        }
+
+        private void allocate(int cap) {
+            ids = new int[cap];
+            Arrays.fill(ids, FREE);
+            mosts = new long[cap];
+            leasts = new long[cap];
+            worlds = new int[cap];
+            spawners = new long[cap];
+            units = new int[cap];
+            homeWorlds = new int[cap];
+            homes = new long[cap];
+            mask = cap - 1;
+            resizeAt = (int) (cap * LOAD_FACTOR);
+        }
+
+        private void rehash(int cap) {
+            int[] oldIds = ids;
+            long[] oldMosts = mosts;
+            long[] oldLeasts = leasts;
+            int[] oldWorlds = worlds;
+            long[] oldSpawners = spawners;
+            int[] oldUnits = units;
+            int[] oldHomeWorlds = homeWorlds;
+            long[] oldHomes = homes;
+            allocate(cap);
+            for (int i = 0; i < oldIds.length; i++) {
+                int k = oldIds[i];
+                if (k == FREE) continue;
+                int j = slot(k);
+                while (ids[j] != FREE) j = (j + 1) & mask;
+                ids[j] = k;
+                mosts[j] = oldMosts[i];
+                leasts[j] = oldLeasts[i];
+                worlds[j] = oldWorlds[i];
+                spawners[j] = oldSpawners[i];
+                units[j] = oldUnits[i];
+                homeWorlds[j] = oldHomeWorlds[i];
+                homes[j] = oldHomes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.beemerwt;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Headless load simulator: replays a workload against the plugin's counting, capping and tweaking code and
+// reports per-tick handler cost, allocation and how far the live counts drifted from the real mob counts.
+//
+//   ./gradlew simulate -Psim.args="storm --set defaults.spawnCap=20 --record storm.csv"
+//   ./gradlew simulate -Psim.args="--replay storm.csv"
+//
+// Runs are deterministic for a given workload; timings are not, so compare runs on the same machine.
+// Entity and spawner data are the Fixtures proxies, whose dispatch allocates; allocation figures include it.
+public final class LoadSimulator {
+
+    private LoadSimulator() { }
+
+    public static void main(String[] args) throws IOException {
+        String preset = "steady";
+        Path replay = null, record = null;
+        int warmup = 1200, checkEvery = 1200;
+        Integer ticks = null;
+        Long seed = null;
+        List<String> overrides = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--replay" -> replay = Path.of(args[++i]);
+                case "--record" -> record = Path.of(args[++i]);
+                case "--ticks" -> ticks = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--check-every" -> checkEvery = Integer.parseInt(args[++i]);
+                case "--set" -> overrides.add(args[++i]);
+                default -> {
+                    if (args[i].startsWith("--")) {
+                        System.err.println("Usage: LoadSimulator [steady|storm|churn | --replay <file>] [--record <file>]"
+                                + " [--ticks <n>] [--seed <n>] [--warmup <ticks>] [--check-every <ticks>] [--set <path>=<value>]...");
+                        System.exit(2);
+                    }
+                    preset = args[i];
+                }
+            }
+        }
+
+        Workload work;
+        if (replay != null) {
+            work = Workload.read(replay);
+        } else {
+            Workload.Shape s = Workload.preset(preset);
+            if (ticks != null || seed != null) {
+                s = new Workload.Shape(s.name(), s.spawners(), s.chunkCount(), ticks != null ? ticks : s.ticks(),
+                        s.spawnsPerHour(), s.killsPerHour(), s.loadedFraction(), s.stormEvery(), s.stormSize(),
+                        s.churnPerTick(), s.applyAllAt(), seed != null ? seed : s.seed());
+            }
+            work = Workload.generate(s);
+        }
+        if (record != null) work.write(record);
+
+        SimServer server = new SimServer(settings(overrides), work);
+        server.start();
+        Workload.Shape s = work.shape;
+        System.out.printf(Locale.ROOT, "Workload %s: %d spawners in %d chunks, %d ticks, %d events (seed %d)%n",
+                s.name(), s.spawners(), s.chunkCount(), s.ticks(), work.events().size(), s.seed());
+
+        long[] cost = new long[s.ticks()];
+        long allocatedBefore = 0, callsBefore = 0;
+        Drift worst = new Drift(0, 0, 0);
+        int checks = 0;
+        List<Workload.Event> events = work.events();
+        int next = 0;
+        for (int t = 1; t <= s.ticks(); t++) {
+            while (next < events.size() && events.get(next).tick() == t) server.event(events.get(next++));
+            server.endTick();
+            cost[t - 1] = server.takeTickNanos();
+            if (t == warmup) {
+                allocatedBefore = server.allocatedBytes();
+                callsBefore = server.handlerCalls();
+                server.stats.reset();
+            }
+            if (checkEvery > 0 && t % checkEvery == 0) {
+                Drift d = drift(server);
+                checks++;
+                if (d.total() > worst.total()) worst = d;
+            }
+        }
+
+        int from = Math.min(warmup, cost.length);
+        long[] measured = Arrays.copyOfRange(cost, from, cost.length);
+        Arrays.sort(measured);
+        long total = 0;
+        for (long c : measured) total += c;
+        int n = Math.max(1, measured.length);
+        System.out.printf(Locale.ROOT, "Per-tick handler cost over %d ticks (first %d skipped as warm-up):%n", measured.length, from);
+        System.out.printf(Locale.ROOT, "  mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus total=%.1fms%n",
+                total / (double) n / 1e3, at(measured, 0.50) / 1e3, at(measured, 0.90) / 1e3, at(measured, 0.99) / 1e3,
+                at(measured, 0.999) / 1e3, at(measured, 1.0) / 1e3, total / 1e6);
+        System.out.printf(Locale.ROOT, "  ticks over 1ms=%d over 5ms=%d%n", over(measured, 1_000_000), over(measured, 5_000_000));
+
+        long bytes = server.allocatedBytes() - allocatedBefore;
+        long calls = Math.max(1, server.handlerCalls() - callsBefore);
+        System.out.printf(Locale.ROOT, "Allocated %.1f MiB in handlers (%.0f B/tick, %.1f B/call over %d calls)%n",
+                bytes / 1048576.0, bytes / (double) n, bytes / (double) calls, calls);
+
+        Drift end = drift(server);
+        System.out.printf(Locale.ROOT, "Live counts at end: %d/%d spawners exact, total drift %d, max drift %d%n",
+                server.spawnerCount() - end.wrong(), server.spawnerCount(), end.total(), end.max());
+        if (checks > 0) {
+            System.out.printf(Locale.ROOT, "  worst of %d checks: %d spawners off, total drift %d, max drift %d%n",
+                    checks, worst.wrong(), worst.total(), worst.max());
+        }
+        System.out.println("Handler stats after warm-up:");
+        for (String line : server.stats.report()) System.out.println(line);
+    }
+
+    // wrong: spawners whose count is off; total: sum of |counted - actual|; max: the largest of those.
+    private record Drift(int wrong, long total, int max) { }
+
+    private static Drift drift(SimServer server) {
+        int wrong = 0, max = 0;
+        long total = 0;
+        for (int i = 0; i < server.spawnerCount(); i++) {
+            int d = Math.abs(server.counted(i) - server.truth(i));
+            if (d == 0) continue;
+            wrong++;
+            total += d;
+            max = Math.max(max, d);
+        }
+        return new Drift(wrong, total, max);
+    }
+
+    private static long at(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, (int) Math.ceil(q * sorted.length) - 1))];
+    }
+
+    private static int over(long[] sorted, long nanos) {
+        int i = Arrays.binarySearch(sorted, nanos + 1);
+        return sorted.length - (i < 0 ? -i - 1 : i);
+    }
+
+    // The shipped config with --set overrides; values are parsed as numbers or booleans where they look like one.
+    private static Settings settings(List<String> overrides) {
+        YamlConfiguration cfg;
+        try (Reader r = new InputStreamReader(LoadSimulator.class.getResourceAsStream("/config.yml"), StandardCharsets.UTF_8)) {
+            cfg = YamlConfiguration.loadConfiguration(r);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String o : overrides) {
+            int eq = o.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("--set expects <path>=<value>, got '" + o + "'");
+            cfg.set(o.substring(0, eq), value(o.substring(eq + 1)));
+        }
+        List<String> problems = new ArrayList<>();
+        Settings settings = Settings.fromConfig(cfg, problems);
+        for (String p : problems) System.out.println("config: " + p);
+        return settings;
+    }
+
+    private static Object value(String v) {
+        if (v.equals("true") || v.equals("false")) return Boolean.parseBoolean(v);
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            try {
+                return Double.parseDouble(v);
+            } catch (NumberFormatException e2) {
+                return v;
+            }
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.github.beemerwt;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.CreatureSpawner;
+import org.bukkit.entity.EntityType;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static com.github.beemerwt.Settings.SpawnerValues;
+
+// One world's worth of server state driven by a Workload, calling the plugin's components in the order
+// its event handlers do (SpawnerSpawnEvent, EntityDeathEvent + EntityRemoveFromWorldEvent, ChunkLoadEvent +
+// EntitiesLoadEvent, EntitiesUnloadEvent + ChunkUnloadEvent, the chunk-queue drain, the despawn wheel).
+// SpawnerTweaks itself needs a running server, so the handler bodies are mirrored here. The decisions inside
+// them (SpawnLimits, SpawnerTweak.tweak, the index's learn and chunkKeys) are called, not copied; what is
+// left is event plumbing, and a change to a handler comes here in the same commit.
+// Only the mirrored handler code is timed and metered, not the bookkeeping that plays the world.
+// Stacking is not simulated: there is no entity search to find a stack to join.
+final class SimServer {
+
+    private static final EntityType[] TYPES = {
+            EntityType.ZOMBIE, EntityType.SKELETON, EntityType.SPIDER, EntityType.CAVE_SPIDER, EntityType.BLAZE };
+    private static final NamespacedKey ORIGIN_KEY = Fixtures.ORIGIN_KEY;
+    private static final NamespacedKey TWEAK_KEY = Fixtures.TWEAK_KEY;
+    private static final NamespacedKey EXPIRES_KEY = new NamespacedKey("spawnertweaks", "expires_at");
+
+    // The plugin's components, as SpawnerTweaks wires them.
+    final LiveCounts liveBySpawner = new LiveCounts();
+    final TrackedEntities tracked = new TrackedEntities(liveBySpawner);
+    final ParkedCounts parked = new ParkedCounts(liveBySpawner);
+    final SpawnRates spawnRates = new SpawnRates();
+    final EntityTypeSet trackedTypes = new EntityTypeSet();
+    final TimingWheel despawns = new TimingWheel();
+    final ChunkWorkQueue chunkQueue = new ChunkWorkQueue();
+    final SpawnerIndex.WorldIndex index = new SpawnerIndex.WorldIndex();
+    final OriginTag origin = new OriginTag(ORIGIN_KEY);
+    final EntityStacks stacks = new EntityStacks(new NamespacedKey("spawnertweaks", "stack_size"),
+            new NamespacedKey("spawnertweaks", "stack_label"));
+    final Stats stats = new Stats();
+
+    private final Settings settings;
+    private final Workload work;
+    private final World world;
+    private final UUID worldId;
+    private final int slot;
+
+    // The simulated world: spawners, chunks and the mobs alive in them.
+    private final long[] spawnerPos;
+    private final CreatureSpawner[] spawners;
+    private final LongIntMap spawnerAt = new LongIntMap(); // block key -> spawner index
+    private final int[][] chunkSpawners;                   // chunk index -> spawner indexes
+    private final boolean[] loaded;
+    private int[] mobSpawner = new int[1 << 16], mobNext = new int[1 << 16], mobPrev = new int[1 << 16];
+    private PersistentDataContainer[] mobData = new PersistentDataContainer[1 << 16];
+    private boolean[] mobAlive = new boolean[1 << 16], mobTagged = new boolean[1 << 16];
+    private final int[] firstMob, lastMob; // per spawner, oldest first; -1 when none
+    private int nextMobId = 1;
+    private long gameTime;
+    private long[] sweep; // chunk keys of a running applyall, or null
+    private int sweepAt;
+    private int despawnBudget;
+
+    // Ground truth: tagged mobs alive per spawner, wherever they are.
+    private final int[] truth;
+
+    // Handler cost and allocation, metered around the mirrored handler bodies only.
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long tickNanos, allocatedBytes;
+    private long handlerCalls;
+
+    SimServer(Settings settings, Workload work) {
+        this.settings = settings;
+        this.work = work;
+        this.worldId = new UUID(0x5eedL, work.shape.seed());
+        this.world = world("sim", worldId);
+        this.slot = liveBySpawner.slot(worldId);
+        liveBySpawner.setCellShift(settings.cluster().cellShift());
+        stats.setEnabled(true);
+
+        int n = work.spawnerChunk.length;
+        spawnerPos = new long[n];
+        spawners = new CreatureSpawner[n];
+        truth = new int[n];
+        firstMob = new int[n];
+        lastMob = new int[n];
+        Arrays.fill(firstMob, -1);
+        Arrays.fill(lastMob, -1);
+        int[] perChunk = new int[work.chunkX.length];
+        for (int i = 0; i < n; i++) {
+            spawnerPos[i] = blockKey(work.spawnerX[i], work.spawnerY[i], work.spawnerZ[i]);
+            spawners[i] = Fixtures.spawner(Fixtures.pdc());
+            spawnerAt.put(spawnerPos[i], i);
+            perChunk[work.spawnerChunk[i]]++;
+        }
+        chunkSpawners = new int[perChunk.length][];
+        for (int c = 0; c < perChunk.length; c++) chunkSpawners[c] = new int[perChunk[c]];
+        Arrays.fill(perChunk, 0);
+        for (int i = 0; i < n; i++) {
+            int c = work.spawnerChunk[i];
+            chunkSpawners[c][perChunk[c]++] = i;
+        }
+        loaded = new boolean[perChunk.length];
+    }
+
+    // Chunks loaded when the server starts go through the same load path as any other.
+    void start() {
+        for (int c = 0; c < loaded.length; c++) {
+            if (work.initiallyLoaded[c]) load(c);
+        }
+        chunkQueue.drain(Long.MAX_VALUE, (w, cx, cz) -> processLoadedChunk(cx, cz));
+        stats.reset();
+    }
+
+    // Runs one event; its handler cost is added to the current tick.
+    void event(Workload.Event e) {
+        switch (e.kind()) {
+            case SPAWN -> spawn(e.a());
+            case KILL -> kill(e.a());
+            case LOAD -> load(e.a());
+            case UNLOAD -> unload(e.a());
+            case APPLYALL -> applyAll();
+        }
+    }
+
+    // End-of-tick scheduled work: the chunk-queue drain, a running applyall sweep and the despawn wheel.
+    void endTick() {
+        gameTime++;
+        long a = begin();
+        chunkQueue.drain(settings.chunkLoadBudgetNanos(), (w, cx, cz) -> processLoadedChunk(cx, cz));
+        if (sweep != null) sweepTick();
+        if (despawns.size() != 0) {
+            long t0 = stats.start();
+            despawnBudget = settings.despawnsPerTick();
+            despawns.tick(this::expire);
+            stats.stop(Stats.Timer.DESPAWN_TICK, t0);
+        }
+        end(a);
+    }
+
+    // Handler cost since the last call, then cleared.
+    long takeTickNanos() {
+        long t = tickNanos;
+        tickNanos = 0;
+        return t;
+    }
+
+    long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    long handlerCalls() {
+        return handlerCalls;
+    }
+
+    int spawnerCount() {
+        return spawnerPos.length;
+    }
+
+    int truth(int spawner) {
+        return truth[spawner];
+    }
+
+    int counted(int spawner) {
+        return liveBySpawner.get(slot, spawnerPos[spawner]);
+    }
+
+    // ========== Mirrored handlers ==========
+
+    private void spawn(int sp) {
+        if (!loaded[work.spawnerChunk[sp]]) return;
+        int id = newMob(sp); // the server creates the entity before firing the event
+        long a = begin();
+        long t0 = stats.start();
+        boolean allowed = handleSpawnerSpawn(sp, id);
+        stats.stop(Stats.Timer.SPAWNER_SPAWN, t0);
+        end(a);
+        if (!allowed) dropMob(id);
+        else if (mobTagged[id] = origin.isTagged(mobData[id])) truth[sp]++;
+    }
+
+    // Returns false where the event would be cancelled.
+    private boolean handleSpawnerSpawn(int sp, int id) {
+        int sc = work.spawnerChunk[sp];
+        int scx = work.chunkX[sc], scz = work.chunkZ[sc];
+        if (chunkQueue.remove(world, scx, scz)) processLoadedChunk(scx, scz);
+        final EntityType type = TYPES[sp % TYPES.length];
+        if (index.learn(work.spawnerX[sp], work.spawnerY[sp], work.spawnerZ[sp], type)) tweakSpawner(sp);
+
+        final Settings s = settings;
+        final SpawnerValues values = s.effective(slot, world.getName(), type, 0, matchRule(s, sp, type)).values();
+        final int cap = values.spawnCap();
+        final int rate = values.spawnsPerMinute();
+        final int lifetime = values.despawnSeconds();
+        final Settings.ClusterCap cluster = s.cluster();
+        final boolean counted = cap >= 0 || cluster.enabled() || s.stacking().enabled() || lifetime >= 0;
+
+        if (counted || rate >= 0) {
+            long pos = spawnerPos[sp];
+            Stats.Counter refused = SpawnLimits.check(liveBySpawner, spawnRates, slot, pos, spawners[sp], values, cluster);
+            if (refused != null) {
+                stats.count(refused);
+                return false;
+            }
+            if (counted) {
+                PersistentDataContainer pdc = mobData[id];
+                if (!origin.isTagged(pdc)) {
+                    origin.write(pdc, worldId, pos);
+                    trackedTypes.add(type);
+                    tracked.track(id, 0L, id, slot, pos, 1, slot, SpawnerIndexFile.chunkKey(scx, scz));
+                    if (lifetime >= 0) {
+                        long ticks = lifetime * 20L;
+                        pdc.set(EXPIRES_KEY, PersistentDataType.LONG, gameTime + ticks);
+                        despawns.schedule(0L, id, ticks);
+                    }
+                }
+            }
+        }
+        stats.count(Stats.Counter.SPAWNS_ALLOWED);
+        return true;
+    }
+
+    private void kill(int sp) {
+        int id = firstMob[sp];
+        if (id < 0 || !loaded[work.spawnerChunk[sp]]) return;
+        long a = begin();
+        long t0 = stats.start();
+        if (mayBeTracked(TYPES[sp % TYPES.length])) tracked.untrack(id);
+        stats.stop(Stats.Timer.ENTITY_DEATH, t0);
+        removed(sp, id);
+        end(a);
+        if (mobTagged[id]) truth[sp]--;
+        dropMob(id);
+    }
+
+    private void load(int c) {
+        if (loaded[c]) return;
+        loaded[c] = true;
+        int cx = work.chunkX[c], cz = work.chunkZ[c];
+        long a = begin();
+        long t0 = stats.start();
+        chunkQueue.offer(world, cx, cz);
+        stats.stop(Stats.Timer.CHUNK_LOAD, t0);
+
+        // EntitiesLoadEvent
+        long chunkKey = SpawnerIndexFile.chunkKey(cx, cz);
+        parked.release(slot, chunkKey);
+        for (int sp : chunkSpawners[c]) {
+            for (int id = firstMob[sp]; id >= 0; id = mobNext[id]) trackIfTagged(id, sp, chunkKey);
+        }
+        end(a);
+    }
+
+    private void unload(int c) {
+        if (!loaded[c]) return;
+        int cx = work.chunkX[c], cz = work.chunkZ[c];
+        long a = begin();
+        // EntitiesUnloadEvent
+        if (tracked.size() != 0) {
+            long chunkKey = SpawnerIndexFile.chunkKey(cx, cz);
+            for (int sp : chunkSpawners[c]) {
+                if (!trackedTypes.contains(TYPES[sp % TYPES.length])) continue;
+                for (int id = firstMob[sp]; id >= 0; id = mobNext[id]) tracked.park(id, parked, slot, chunkKey);
+            }
+        }
+        // ChunkUnloadEvent, then a removal event per entity
+        chunkQueue.remove(world, cx, cz);
+        for (int sp : chunkSpawners[c]) {
+            for (int id = firstMob[sp]; id >= 0; id = mobNext[id]) removed(sp, id);
+        }
+        end(a);
+        loaded[c] = false;
+    }
+
+    // EntityRemoveFromWorldEvent
+    private void removed(int sp, int id) {
+        long t0 = stats.start();
+        if (mayBeTracked(TYPES[sp % TYPES.length])) tracked.untrack(id);
+        stats.stop(Stats.Timer.ENTITY_REMOVE, t0);
+    }
+
+    private boolean mayBeTracked(EntityType type) {
+        return tracked.size() != 0 && trackedTypes.contains(type);
+    }
+
+    private void trackIfTagged(int id, int sp, long homeChunk) {
+        if (tracked.isTracked(id)) return;
+        PersistentDataContainer pdc = mobData[id];
+        long[] tag = origin.read(pdc);
+        if (tag == null) return;
+        int s = liveBySpawner.slot(tag[OriginTag.WORLD_MOST], tag[OriginTag.WORLD_LEAST]);
+        trackedTypes.add(TYPES[sp % TYPES.length]);
+        tracked.track(id, 0L, id, s, tag[OriginTag.BLOCK_KEY], stacks.read(pdc), slot, homeChunk);
+        Long expires = pdc.get(EXPIRES_KEY, PersistentDataType.LONG);
+        if (expires != null) despawns.schedule(0L, id, expires - gameTime);
+    }
+
+    private void expire(long most, long least) {
+        int id = (int) least;
+        if (!mobAlive[id] || !loaded[work.spawnerChunk[mobSpawner[id]]]) return;
+        Long expires = mobData[id].get(EXPIRES_KEY, PersistentDataType.LONG);
+        if (expires == null) return;
+        long left = expires - gameTime;
+        if (left > 0 || despawnBudget <= 0) {
+            despawns.schedule(most, least, left);
+            return;
+        }
+        despawnBudget--;
+        tracked.untrack(id);
+        int sp = mobSpawner[id];
+        removed(sp, id);
+        if (mobTagged[id]) truth[sp]--;
+        dropMob(id); // bookkeeping inside the metered tick; small next to the handler work
+        stats.count(Stats.Counter.MOBS_DESPAWNED);
+    }
+
+    // /st applyall: the loaded indexed chunks are swept a budget's worth per tick from endTick. The budget
+    // stays at its configured initial value; there is no server tick time here to adapt it to.
+    private void applyAll() {
+        if (sweep != null) return;
+        long[] keys = index.chunkKeys();
+        int n = 0;
+        for (long k : keys) {
+            if (isLoaded(SpawnerIndexFile.chunkX(k), SpawnerIndexFile.chunkZ(k))) keys[n++] = k;
+        }
+        if (n == 0) return;
+        sweep = Arrays.copyOf(keys, n);
+        sweepAt = 0;
+    }
+
+    private void sweepTick() {
+        long t0 = stats.start();
+        long deadline = System.nanoTime() + settings.applyAll().initialNanos();
+        do {
+            long k = sweep[sweepAt++];
+            int cx = SpawnerIndexFile.chunkX(k), cz = SpawnerIndexFile.chunkZ(k);
+            if (isLoaded(cx, cz)) applyToChunk(cx, cz);
+        } while (sweepAt < sweep.length && System.nanoTime() < deadline);
+        if (sweepAt == sweep.length) sweep = null;
+        stats.stop(Stats.Timer.APPLYALL_TICK, t0);
+    }
+
+    private void processLoadedChunk(int cx, int cz) {
+        if (!isLoaded(cx, cz)) return;
+        long t0 = stats.start();
+        applyToChunk(cx, cz);
+        stats.stop(Stats.Timer.CHUNK_WORK, t0);
+    }
+
+    private int applyToChunk(int cx, int cz) {
+        if (index.isScanned(cx, cz)) {
+            long[] known = index.chunk(cx, cz);
+            if (known == null) return 0;
+            for (long entry : known) {
+                int p = SpawnerIndexFile.localPos(entry);
+                long key = blockKey((cx << 4) | SpawnerIndexFile.localX(p), SpawnerIndexFile.localY(p),
+                        (cz << 4) | SpawnerIndexFile.localZ(p));
+                tweakSpawner(spawnerAt.get(key));
+            }
+            return known.length;
+        }
+        // First sight of the chunk: the tile-entity snapshot.
+        int c = chunkIndex(cx, cz);
+        int[] here = c < 0 ? new int[0] : chunkSpawners[c];
+        long[] found = here.length == 0 ? null : new long[here.length];
+        for (int j = 0; j < here.length; j++) {
+            int sp = here[j];
+            found[j] = SpawnerIndex.entry(work.spawnerX[sp], work.spawnerY[sp], work.spawnerZ[sp], TYPES[sp % TYPES.length]);
+            tweakSpawner(sp);
+        }
+        index.replaceChunk(cx, cz, found);
+        return here.length;
+    }
+
+    private void tweakSpawner(int sp) {
+        long t0 = stats.start();
+        EntityType type = TYPES[sp % TYPES.length];
+        Settings s = settings;
+        Settings.Effective eff = s.effective(slot, world.getName(), type, 0, matchRule(s, sp, type));
+        Stats.Counter done = SpawnerTweak.tweak(spawners[sp], TWEAK_KEY, eff);
+        if (done != null) stats.count(done);
+        stats.stop(Stats.Timer.TWEAK_SPAWNER, t0);
+    }
+
+    // Biome conditions see no biome here (they match as "any"); every simulated spawner is generated.
+    private int matchRule(Settings s, int sp, EntityType type) {
+        SpawnerRules rules = s.rules();
+        if (rules.isEmpty()) return -1;
+        return rules.match(world.getName(), type, null, work.spawnerX[sp], work.spawnerY[sp], work.spawnerZ[sp], false);
+    }
+
+    // ========== World bookkeeping ==========
+
+    private long begin() {
+        handlerCalls++;
+        allocatedBytes -= threads.getCurrentThreadAllocatedBytes();
+        return System.nanoTime();
+    }
+
+    private void end(long start) {
+        tickNanos += System.nanoTime() - start;
+        allocatedBytes += threads.getCurrentThreadAllocatedBytes();
+    }
+
+    private boolean isLoaded(int cx, int cz) {
+        int c = chunkIndex(cx, cz);
+        return c >= 0 && loaded[c];
+    }
+
+    private int chunkIndex(int cx, int cz) {
+        int side = (int) Math.ceil(Math.sqrt(loaded.length));
+        int i = (cz + side / 2) * side + (cx + side / 2);
+        return cx + side / 2 < 0 || cx + side / 2 >= side || i < 0 || i >= loaded.length ? -1 : i;
+    }
+
+    private int newMob(int sp) {
+        int id = nextMobId++;
+        if (id == mobSpawner.length) {
+            int n = id * 2;
+            mobSpawner = Arrays.copyOf(mobSpawner, n);
+            mobNext = Arrays.copyOf(mobNext, n);
+            mobPrev = Arrays.copyOf(mobPrev, n);
+            mobData = Arrays.copyOf(mobData, n);
+            mobAlive = Arrays.copyOf(mobAlive, n);
+            mobTagged = Arrays.copyOf(mobTagged, n);
+        }
+        mobSpawner[id] = sp;
+        mobData[id] = Fixtures.pdc();
+        mobAlive[id] = true;
+        mobTagged[id] = false;
+        mobNext[id] = -1;
+        mobPrev[id] = lastMob[sp];
+        if (lastMob[sp] >= 0) mobNext[lastMob[sp]] = id;
+        else firstMob[sp] = id;
+        lastMob[sp] = id;
+        return id;
+    }
+
+    private void dropMob(int id) {
+        int sp = mobSpawner[id];
+        int prev = mobPrev[id], next = mobNext[id];
+        if (prev >= 0) mobNext[prev] = next;
+        else firstMob[sp] = next;
+        if (next >= 0) mobPrev[next] = prev;
+        else lastMob[sp] = prev;
+        mobAlive[id] = false;
+        mobData[id] = null;
+    }
+
+    private static long blockKey(int x, int y, int z) {
+        return Block.getBlockKey(x, y, z);
+    }
+
+    private static World world(String name, UUID id) {
+        return (World) Proxy.newProxyInstance(SimServer.class.getClassLoader(), new Class<?>[] { World.class },
+                (proxy, m, args) -> switch (m.getName()) {
+                    case "getName" -> name;
+                    case "getUID" -> id;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "World{" + name + "}";
+                    default -> throw new UnsupportedOperationException(m.getName());
+                });
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.beemerwt;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// What happens on the simulated server, as inputs only: spawn attempts, kills, chunk loads and unloads
+// and applyall runs. Nothing here depends on the plugin's decisions, so the same workload (generated from
+// a seed, or replayed from a recording) drives every run identically and results can be compared.
+final class Workload {
+
+    enum Kind { SPAWN, KILL, LOAD, UNLOAD, APPLYALL }
+
+    // a is a spawner index for SPAWN and KILL, a chunk index for LOAD and UNLOAD.
+    record Event(int tick, Kind kind, int a) { }
+
+    // Spawners are spread over chunkCount chunks in a square around the origin.
+    record Shape(String name, int spawners, int chunkCount, int ticks, double spawnsPerHour, double killsPerHour,
+                 double loadedFraction, int stormEvery, int stormSize, int churnPerTick, int applyAllAt, long seed) { }
+
+    static final List<Shape> PRESETS = List.of(
+            new Shape("steady", 5_000, 2_500, 72_000, 200_000, 150_000, 0.4, 0, 0, 0, -1, 1),
+            new Shape("storm", 5_000, 2_500, 36_000, 200_000, 150_000, 0.2, 6_000, 1_500, 0, 18_000, 2),
+            new Shape("churn", 5_000, 2_500, 36_000, 200_000, 150_000, 0.4, 0, 0, 4, -1, 3));
+
+    final Shape shape;
+    final int[] spawnerChunk;  // spawner index -> chunk index
+    final int[] spawnerX, spawnerY, spawnerZ;
+    final int[] chunkX, chunkZ;
+    final boolean[] initiallyLoaded;
+    private final List<Event> events;
+
+    private Workload(Shape shape, int[] spawnerChunk, int[] x, int[] y, int[] z, int[] cx, int[] cz,
+                     boolean[] loaded, List<Event> events) {
+        this.shape = shape;
+        this.spawnerChunk = spawnerChunk;
+        this.spawnerX = x;
+        this.spawnerY = y;
+        this.spawnerZ = z;
+        this.chunkX = cx;
+        this.chunkZ = cz;
+        this.initiallyLoaded = loaded;
+        this.events = events;
+    }
+
+    List<Event> events() {
+        return events;
+    }
+
+    static Shape preset(String name) {
+        for (Shape s : PRESETS) if (s.name().equalsIgnoreCase(name)) return s;
+        throw new IllegalArgumentException("unknown workload '" + name + "'");
+    }
+
+    static Workload generate(Shape s) {
+        SplittableRandom rnd = new SplittableRandom(s.seed());
+        int side = (int) Math.ceil(Math.sqrt(s.chunkCount()));
+        int[] cx = new int[s.chunkCount()], cz = new int[s.chunkCount()];
+        for (int i = 0; i < cx.length; i++) {
+            cx[i] = i % side - side / 2;
+            cz[i] = i / side - side / 2;
+        }
+        int[] sc = new int[s.spawners()], x = new int[s.spawners()], y = new int[s.spawners()], z = new int[s.spawners()];
+        Set<List<Integer>> taken = new HashSet<>();
+        for (int i = 0; i < sc.length; i++) {
+            do {
+                sc[i] = rnd.nextInt(cx.length);
+                x[i] = (cx[sc[i]] << 4) | rnd.nextInt(16);
+                y[i] = rnd.nextInt(-60, 60);
+                z[i] = (cz[sc[i]] << 4) | rnd.nextInt(16);
+            } while (!taken.add(List.of(x[i], y[i], z[i])));
+        }
+        boolean[] loaded = new boolean[cx.length];
+        for (int i = 0; i < loaded.length; i++) loaded[i] = rnd.nextDouble() < s.loadedFraction();
+
+        // Spawns and kills only ever target spawners in loaded chunks, as on a real server.
+        boolean[] now = loaded.clone();
+        List<Event> ev = new ArrayList<>();
+        double spawnsPerTick = s.spawnsPerHour() / 72_000.0, killsPerTick = s.killsPerHour() / 72_000.0;
+        List<Integer> stormed = new ArrayList<>();
+        for (int t = 1; t <= s.ticks(); t++) {
+            if (s.stormEvery() > 0 && t % s.stormEvery() == 0) {
+                // Load a burst of chunks (a teleport or elytra flight), unloading the previous burst.
+                for (int c : stormed) if (now[c]) {
+                    now[c] = false;
+                    ev.add(new Event(t, Kind.UNLOAD, c));
+                }
+                stormed.clear();
+                for (int k = 0; k < s.stormSize(); k++) {
+                    int c = rnd.nextInt(cx.length);
+                    if (now[c]) continue;
+                    now[c] = true;
+                    stormed.add(c);
+                    ev.add(new Event(t, Kind.LOAD, c));
+                }
+            }
+            for (int k = 0; k < s.churnPerTick(); k++) {
+                int c = rnd.nextInt(cx.length);
+                now[c] = !now[c];
+                ev.add(new Event(t, now[c] ? Kind.LOAD : Kind.UNLOAD, c));
+            }
+            if (t == s.applyAllAt()) ev.add(new Event(t, Kind.APPLYALL, 0));
+            for (int k = poisson(rnd, spawnsPerTick); k > 0; k--) {
+                int sp = rnd.nextInt(sc.length);
+                if (now[sc[sp]]) ev.add(new Event(t, Kind.SPAWN, sp));
+            }
+            for (int k = poisson(rnd, killsPerTick); k > 0; k--) {
+                int sp = rnd.nextInt(sc.length);
+                if (now[sc[sp]]) ev.add(new Event(t, Kind.KILL, sp));
+            }
+        }
+        return new Workload(s, sc, x, y, z, cx, cz, loaded, ev);
+    }
+
+    private static int poisson(SplittableRandom rnd, double mean) {
+        double l = Math.exp(-mean), p = 1.0;
+        int k = 0;
+        do {
+            k++;
+            p *= rnd.nextDouble();
+        } while (p > l);
+        return k - 1;
+    }
+
+    // The shape line, then one line per event; layout and events are rebuilt from the shape's seed
+    // and the recorded events replace the generated ones.
+    void write(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            Shape s = shape;
+            w.write(String.join(",", s.name(), "" + s.spawners(), "" + s.chunkCount(), "" + s.ticks(),
+                    "" + s.spawnsPerHour(), "" + s.killsPerHour(), "" + s.loadedFraction(), "" + s.stormEvery(),
+                    "" + s.stormSize(), "" + s.churnPerTick(), "" + s.applyAllAt(), "" + s.seed()));
+            w.newLine();
+            for (Event e : events) {
+                w.write(e.tick() + "," + e.kind().name().toLowerCase(Locale.ROOT) + "," + e.a());
+                w.newLine();
+            }
+        }
+    }
+
+    static Workload read(Path file) throws IOException {
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String[] f = r.readLine().split(",");
+            Shape s = new Shape(f[0], Integer.parseInt(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3]),
+                    Double.parseDouble(f[4]), Double.parseDouble(f[5]), Double.parseDouble(f[6]),
+                    Integer.parseInt(f[7]), Integer.parseInt(f[8]), Integer.parseInt(f[9]), Integer.parseInt(f[10]),
+                    Long.parseLong(f[11]));
+            Workload layout = generate(s);
+            List<Event> ev = new ArrayList<>();
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] p = line.split(",");
+                ev.add(new Event(Integer.parseInt(p[0]), Kind.valueOf(p[1].toUpperCase(Locale.ROOT)), Integer.parseInt(p[2])));
+            }
+            return new Workload(s, layout.spawnerChunk, layout.spawnerX, layout.spawnerY, layout.spawnerZ,
+                    layout.chunkX, layout.chunkZ, layout.initiallyLoaded, ev);
+        }
+    }
+}
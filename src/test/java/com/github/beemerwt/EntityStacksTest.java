@@ -0,0 +1,105 @@
+package com.github.beemerwt;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityStacksTest {
+
+    private final EntityStacks stacks = new EntityStacks(new NamespacedKey("spawnertweaks", "stack_size"),
+            new NamespacedKey("spawnertweaks", "stack_label"));
+
+    @Test
+    void countLabelComesAndGoesWithTheStack() {
+        Mob mob = new Mob(null);
+        Entity ent = mob.entity();
+        stacks.write(ent, 2, true);
+        stacks.write(ent, 3, true);
+        assertEquals("x3", mob.name);
+        assertTrue(mob.nameVisible);
+        assertEquals(3, stacks.read(mob.pdc));
+
+        stacks.write(ent, 1, true);
+        assertNull(mob.name);
+        assertFalse(mob.nameVisible);
+        assertEquals(1, stacks.read(mob.pdc));
+    }
+
+    @Test
+    void namedMobsKeepTheirName() {
+        Mob mob = new Mob("Bob");
+        stacks.write(mob.entity(), 4, true);
+        assertEquals("Bob", mob.name);
+        stacks.write(mob.entity(), 1, true);
+        assertEquals("Bob", mob.name);
+        assertTrue(mob.nameVisible);
+    }
+
+    @Test
+    void renamedStacksKeepTheNewName() {
+        Mob mob = new Mob(null);
+        stacks.write(mob.entity(), 5, true);
+        mob.name = "Bob"; // a name tag on the stack holder
+        stacks.write(mob.entity(), 4, true);
+        assertEquals("Bob", mob.name);
+        stacks.write(mob.entity(), 1, true);
+        assertEquals("Bob", mob.name);
+        assertEquals(1, stacks.read(mob.pdc));
+    }
+
+    @Test
+    void hiddenCountsNeverTouchTheName() {
+        Mob mob = new Mob(null);
+        stacks.write(mob.entity(), 3, false);
+        assertNull(mob.name);
+        assertEquals(3, stacks.read(mob.pdc));
+    }
+
+    // An entity with just a name and a PDC.
+    private static final class Mob {
+        final Map<NamespacedKey, Object> data = new HashMap<>();
+        final PersistentDataContainer pdc;
+        String name;
+        boolean nameVisible;
+
+        Mob(String name) {
+            this.name = name;
+            this.nameVisible = name != null;
+            pdc = (PersistentDataContainer) Proxy.newProxyInstance(EntityStacksTest.class.getClassLoader(),
+                    new Class<?>[] { PersistentDataContainer.class }, (proxy, m, args) -> switch (m.getName()) {
+                        case "get" -> data.get((NamespacedKey) args[0]);
+                        case "has" -> data.containsKey((NamespacedKey) args[0]);
+                        case "set" -> data.put((NamespacedKey) args[0], args[2]);
+                        case "remove" -> data.remove((NamespacedKey) args[0]);
+                        default -> throw new UnsupportedOperationException(m.getName());
+                    });
+        }
+
+        Entity entity() {
+            return (Entity) Proxy.newProxyInstance(EntityStacksTest.class.getClassLoader(),
+                    new Class<?>[] { Entity.class }, (proxy, m, args) -> switch (m.getName()) {
+                        case "getPersistentDataContainer" -> pdc;
+                        case "getCustomName" -> name;
+                        case "setCustomName" -> {
+                            name = (String) args[0];
+                            yield null;
+                        }
+                        case "setCustomNameVisible" -> {
+                            nameVisible = (Boolean) args[0];
+                            yield null;
+                        }
+                        default -> throw new UnsupportedOperationException(m.getName());
+                    });
+        }
+    }
+}
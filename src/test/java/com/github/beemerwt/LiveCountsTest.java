@@ -0,0 +1,140 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LiveCountsTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 120_000; // a multiple of KEYS.length
+    // Few keys, shared by every thread, so threads keep meeting on the same stripes and entries.
+    private static final long[] KEYS = {
+            Block.getBlockKey(0, 64, 0), Block.getBlockKey(1, 64, 0), Block.getBlockKey(0, 65, 0),
+            Block.getBlockKey(-17, 12, 40), Block.getBlockKey(300, -60, -300), Block.getBlockKey(15, 64, 15),
+    };
+
+    @Test
+    void concurrentAddsOnSharedKeysAreExact() throws Exception {
+        LiveCounts counts = new LiveCounts();
+        int a = counts.slot(new UUID(1, 1)), b = counts.slot(new UUID(2, 2));
+        race(t -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                long key = KEYS[(r + t) % KEYS.length]; // threads start on different keys, then overlap
+                counts.add(a, key, 3);
+                counts.add(b, key, 1);
+                counts.add(a, key, -1);
+            }
+        });
+        int perKey = THREADS * ROUNDS / KEYS.length;
+        for (long key : KEYS) {
+            assertEquals(2 * perKey, counts.get(a, key), "key " + key);
+            assertEquals(perKey, counts.get(b, key), "key " + key);
+        }
+        assertEquals(KEYS.length * 2, counts.size());
+    }
+
+    @Test
+    void entriesReachingZeroAreRemoved() throws Exception {
+        LiveCounts counts = new LiveCounts();
+        counts.setCellShift(4);
+        int slot = counts.slot(new UUID(1, 1));
+        race(t -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                long key = KEYS[(r + t) % KEYS.length];
+                counts.add(slot, key, 1);
+                counts.add(slot, key, -1);
+            }
+        });
+        for (long key : KEYS) {
+            assertEquals(0, counts.get(slot, key));
+            assertEquals(0, counts.clusterCount(slot, key));
+        }
+        assertEquals(0, counts.size());
+        assertEquals(0, counts.cellCount());
+    }
+
+    @Test
+    void clusterSumsFollowConcurrentAdds() throws Exception {
+        LiveCounts counts = new LiveCounts();
+        counts.setCellShift(4);
+        int slot = counts.slot(new UUID(1, 1));
+        race(t -> {
+            for (int r = 0; r < ROUNDS; r++) counts.add(slot, KEYS[r % 3], 1);
+        });
+        // The first three keys share one 16x16 cell.
+        assertEquals(THREADS * ROUNDS, counts.clusterCount(slot, KEYS[0]));
+        assertEquals(1, counts.cellCount());
+        race(t -> {
+            for (int r = 0; r < ROUNDS; r++) counts.add(slot, KEYS[r % 3], -1);
+        });
+        assertEquals(0, counts.clusterCount(slot, KEYS[0]));
+        assertEquals(0, counts.size());
+        assertEquals(0, counts.cellCount());
+    }
+
+    @Test
+    void decrementOfUncountedSpawnerIsNoOp() {
+        LiveCounts counts = new LiveCounts();
+        int slot = counts.slot(new UUID(1, 1));
+        assertEquals(0, counts.add(slot, KEYS[0], -1));
+        assertEquals(0, counts.add(counts.slot(new UUID(9, 9)), KEYS[0], -1));
+        assertEquals(0, counts.size());
+    }
+
+    @Test
+    void clampedDecrementsLeaveTheClusterAlone() {
+        LiveCounts counts = new LiveCounts();
+        counts.setCellShift(4);
+        int slot = counts.slot(new UUID(1, 1));
+        // Counted once and gone again, far away: every stripe now holds an (empty) map for this world.
+        for (int x = 0; x < 1024; x++) {
+            counts.add(slot, Block.getBlockKey(1000 + x, 64, 1000), 1);
+            counts.add(slot, Block.getBlockKey(1000 + x, 64, 1000), -1);
+        }
+        counts.add(slot, KEYS[0], 3);
+        counts.add(slot, KEYS[1], 2);
+
+        // Spawners in the same cell that were never counted.
+        for (int x = 2; x < 16; x++) assertEquals(0, counts.add(slot, Block.getBlockKey(x, 64, 2), -1));
+        assertEquals(5, counts.clusterCount(slot, KEYS[0]));
+        // Over-decrementing one spawner only takes what it had.
+        assertEquals(0, counts.add(slot, KEYS[1], -5));
+        assertEquals(3, counts.clusterCount(slot, KEYS[0]));
+        assertEquals(3, counts.get(slot, KEYS[0]));
+        assertEquals(1, counts.size());
+        assertEquals(1, counts.cellCount());
+    }
+
+    // Runs body(threadIndex) on THREADS threads released together, rethrowing the first failure.
+    static void race(IntConsumer body) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Thread> threads = new ArrayList<>();
+        Throwable[] failure = new Throwable[1];
+        for (int i = 0; i < THREADS; i++) {
+            int t = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    body.accept(t);
+                } catch (Throwable ex) {
+                    synchronized (failure) {
+                        if (failure[0] == null) failure[0] = ex;
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        if (failure[0] instanceof Exception ex) throw ex;
+        if (failure[0] instanceof Error err) throw err;
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.CreatureSpawner;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpawnerTweakTest {
+
+    @Test
+    void delaysMovingDownPastTheCurrentMin() {
+        // A released shed level at 1.5x: 150/150 back to 100/100.
+        CreatureSpawner cs = spawner(150, 150);
+        assertTrue(SpawnerTweak.apply(cs, delays(100, 100)));
+        assertEquals(100, cs.getMinSpawnDelay());
+        assertEquals(100, cs.getMaxSpawnDelay());
+    }
+
+    @Test
+    void delaysMovingUpPastTheCurrentMax() {
+        CreatureSpawner cs = spawner(100, 100);
+        assertTrue(SpawnerTweak.apply(cs, delays(150, 150)));
+        assertEquals(150, cs.getMinSpawnDelay());
+        assertEquals(150, cs.getMaxSpawnDelay());
+    }
+
+    @Test
+    void onlyMaxMovingBelowTheCurrentMin() {
+        CreatureSpawner cs = spawner(200, 800);
+        assertTrue(SpawnerTweak.apply(cs, delays(50, 100)));
+        assertEquals(50, cs.getMinSpawnDelay());
+        assertEquals(100, cs.getMaxSpawnDelay());
+    }
+
+    @Test
+    void unchangedDelaysAreNotWritten() {
+        CreatureSpawner cs = spawner(200, 800);
+        assertFalse(SpawnerTweak.apply(cs, delays(200, 800)));
+        assertFalse(SpawnerTweak.apply(cs, delays(-1, -1)));
+    }
+
+    private static Settings.SpawnerValues delays(int min, int max) {
+        return new Settings.SpawnerValues(min, max, -1, -1, -1, -1, -1, -1, -1, -1);
+    }
+
+    // Delays only, with the same preconditions as CraftCreatureSpawner.
+    private static CreatureSpawner spawner(int min, int max) {
+        Map<String, Integer> values = new HashMap<>(Map.of("MinSpawnDelay", min, "MaxSpawnDelay", max));
+        return (CreatureSpawner) Proxy.newProxyInstance(SpawnerTweakTest.class.getClassLoader(),
+                new Class<?>[] { CreatureSpawner.class }, (proxy, m, args) -> {
+                    String name = m.getName();
+                    switch (name) {
+                        case "getMinSpawnDelay", "getMaxSpawnDelay" -> {
+                            return values.get(name.substring(3));
+                        }
+                        case "setMinSpawnDelay" -> {
+                            if ((Integer) args[0] > values.get("MaxSpawnDelay")) {
+                                throw new IllegalArgumentException("Minimum Spawn Delay must be less than or equal to Maximum Spawn Delay");
+                            }
+                            values.put("MinSpawnDelay", (Integer) args[0]);
+                            return null;
+                        }
+                        case "setMaxSpawnDelay" -> {
+                            if ((Integer) args[0] < values.get("MinSpawnDelay")) {
+                                throw new IllegalArgumentException("Maximum Spawn Delay must be greater than or equal to Minimum Spawn Delay");
+                            }
+                            values.put("MaxSpawnDelay", (Integer) args[0]);
+                            return null;
+                        }
+                        default -> throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.beemerwt;
+
+import org.bukkit.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.beemerwt.LiveCountsTest.race;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackedEntitiesTest {
+
+    private static final int THREADS = 8;
+    private static final int ENTITIES = 50_000;
+    private static final long[] SPAWNERS = {
+            Block.getBlockKey(0, 64, 0), Block.getBlockKey(1, 64, 0), Block.getBlockKey(-40, 20, 90),
+    };
+
+    private static long spawnerOf(int id) {
+        return SPAWNERS[id % SPAWNERS.length];
+    }
+
+    @Test
+    void eachEntityIsCountedAndReleasedOnce() throws Exception {
+        LiveCounts counts = new LiveCounts();
+        TrackedEntities tracked = new TrackedEntities(counts);
+        int slot = counts.slot(new UUID(1, 1));
+        AtomicInteger tracks = new AtomicInteger(), untracks = new AtomicInteger();
+        // Every thread tries every id, so each track and untrack races the same call on the others.
+        race(t -> {
+            for (int i = 0; i < ENTITIES; i++) {
+                int id = (i + t * 997) % ENTITIES;
+                if (tracked.track(id, slot, spawnerOf(id))) tracks.incrementAndGet();
+            }
+        });
+        assertEquals(ENTITIES, tracks.get());
+        assertEquals(ENTITIES, tracked.size());
+        for (long key : SPAWNERS) assertEquals(countFor(key), counts.get(slot, key));
+
+        race(t -> {
+            for (int i = 0; i < ENTITIES; i++) {
+                if (tracked.untrack((i + t * 997) % ENTITIES)) untracks.incrementAndGet();
+            }
+        });
+        assertEquals(ENTITIES, untracks.get());
+        assertEquals(0, tracked.size());
+        assertEquals(0, counts.size());
+    }
+
+    @Test
+    void interleavedTrackAndUntrackLeaveExactCounts() throws Exception {
+        LiveCounts counts = new LiveCounts();
+        TrackedEntities tracked = new TrackedEntities(counts);
+        int slot = counts.slot(new UUID(1, 1));
+        // Each thread keeps its share of the ids and tracks and drops a twin of each, all on the same spawners.
+        race(t -> {
+            for (int i = t; i < ENTITIES; i += THREADS) {
+                tracked.track(i, slot, spawnerOf(i));
+                tracked.track(i + ENTITIES, slot, spawnerOf(i));
+                tracked.untrack(i + ENTITIES);
+            }
+        });
+        assertEquals(ENTITIES, tracked.size());
+        for (long key : SPAWNERS) assertEquals(countFor(key), counts.get(slot, key));
+        for (int id = ENTITIES; id < 2 * ENTITIES; id++) assertFalse(tracked.isTracked(id));
+    }
+
+    @Test
+    void concurrentStackGrowthIsExact() throws Exception {
+        LiveCounts counts = new LiveCounts();
+        TrackedEntities tracked = new TrackedEntities(counts);
+        int slot = counts.slot(new UUID(1, 1));
+        int stacks = 64, grows = 2_000;
+        for (int id = 0; id < stacks; id++) tracked.track(id, slot, spawnerOf(id));
+        race(t -> {
+            for (int g = 0; g < grows; g++) {
+                for (int id = 0; id < stacks; id++) assertTrue(tracked.addUnits(id, 1));
+            }
+        });
+        int perStack = 1 + THREADS * grows;
+        for (int id = 0; id < stacks; id++) assertEquals(perStack, tracked.units(id));
+        int total = 0;
+        for (long key : SPAWNERS) total += counts.get(slot, key);
+        assertEquals(stacks * perStack, total);
+
+        race(t -> {
+            for (int id = t; id < stacks; id += THREADS) tracked.untrack(id);
+        });
+        assertEquals(0, tracked.size());
+        assertEquals(0, counts.size());
+    }
+
+    @Test
+    void stacksNeverShrinkBelowOneUnit() {
+        LiveCounts counts = new LiveCounts();
+        TrackedEntities tracked = new TrackedEntities(counts);
+        int slot = counts.slot(new UUID(1, 1));
+        tracked.track(7, slot, SPAWNERS[0]);
+        assertTrue(tracked.addUnits(7, 4));
+        assertTrue(tracked.addUnits(7, -10));
+        assertEquals(1, tracked.units(7));
+        assertEquals(1, counts.get(slot, SPAWNERS[0]));
+        assertFalse(tracked.addUnits(8, 1));
+        assertFalse(tracked.untrack(8));
+    }
+
+    @Test
+    void sampleVisitsEveryEntityWithKnownUuid() {
+        LiveCounts counts = new LiveCounts();
+        TrackedEntities tracked = new TrackedEntities(counts);
+        int slot = counts.slot(new UUID(1, 1));
+        for (int id = 0; id < 1000; id++) {
+            if (id % 10 == 0) tracked.track(id, slot, spawnerOf(id)); // UUID unknown
+            else tracked.track(id, 1L, id, slot, spawnerOf(id), 1, slot, 0L);
+        }
+        long[] cursor = new long[1];
+        int[] ids = new int[32];
+        long[] most = new long[32], least = new long[32];
+        boolean[] seen = new boolean[1000];
+        int seenCount = 0;
+        do {
+            int n = tracked.sample(cursor, ids, most, least);
+            for (int i = 0; i < n; i++) {
+                assertEquals(ids[i], least[i]);
+                if (!seen[ids[i]]) seenCount++;
+                seen[ids[i]] = true;
+            }
+        } while (cursor[0] != 0L);
+        assertEquals(900, seenCount);
+        for (int id = 0; id < 1000; id += 10) assertFalse(seen[id]);
+    }
+
+    private static int countFor(long spawnerKey) {
+        int n = 0;
+        for (int id = 0; id < ENTITIES; id++) if (spawnerOf(id) == spawnerKey) n++;
+        return n;
+    }
+}